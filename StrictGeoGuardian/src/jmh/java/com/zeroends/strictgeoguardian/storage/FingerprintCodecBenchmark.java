@@ -0,0 +1,87 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.zeroends.strictgeoguardian.model.Fingerprint;
+import com.zeroends.strictgeoguardian.util.InstantAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two fingerprint file formats on a typical record: the pretty-printed JSON that
+ * {@link JsonStorage} writes by default and the {@link FingerprintCodec} binary format, on both
+ * speed and encoded size. Sizes are printed once per fork, ahead of the timing results.
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FingerprintCodecBenchmark {
+
+    private Gson gson;
+    private Fingerprint fingerprint;
+    private String json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        // Same settings as the plugin's own Gson instance.
+        gson = new GsonBuilder()
+                .registerTypeAdapter(Instant.class, new InstantAdapter())
+                .setPrettyPrinting()
+                .create();
+        fingerprint = new Fingerprint(
+                4_815_162_342L, "Steve", Instant.parse("2025-06-01T12:34:56.789Z"),
+                UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5"), "java", "3f2a9c1e",
+                "ipv4", hex(1), hex(2), hex(3), 52, 1460,
+                "vanilla", null, null, "12:0:1", "en_us", "7f",
+                "ID", "AS", "Jakarta", "Jakarta", -6.2088, 106.8456, "Asia/Jakarta",
+                "10110", "+62", "AS7713", "PT Telekomunikasi Indonesia", "Telkom Indonesia", "telkom.net.id"
+        );
+        json = gson.toJson(fingerprint);
+        binary = FingerprintCodec.encode(fingerprint);
+
+        int jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+        System.out.printf("%nEncoded size: json=%d bytes, binary=%d bytes (%.1f%% of json)%n",
+                jsonBytes, binary.length, binary.length * 100.0 / jsonBytes);
+    }
+
+    private static String hex(int seed) {
+        StringBuilder hash = new StringBuilder(64);
+        for (int i = 0; i < 32; i++) {
+            hash.append(String.format("%02x", (seed * 31 + i * 17) & 0xFF));
+        }
+        return hash.toString();
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return gson.toJson(fingerprint).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Fingerprint decodeJson() {
+        return gson.fromJson(json, Fingerprint.class);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return FingerprintCodec.encode(fingerprint);
+    }
+
+    @Benchmark
+    public Fingerprint decodeBinary() throws IOException {
+        return FingerprintCodec.decode(binary);
+    }
+}
@@ -4,20 +4,36 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.zeroends.strictgeoguardian.commands.IdentityCommand;
 import com.zeroends.strictgeoguardian.commands.PassCommand;
+import com.zeroends.strictgeoguardian.core.AuditLog;
 import com.zeroends.strictgeoguardian.core.AuthManager;
 import com.zeroends.strictgeoguardian.core.ConfigManager;
+import com.zeroends.strictgeoguardian.core.LoginTracer;
+import com.zeroends.strictgeoguardian.core.MetricsExporter;
+import com.zeroends.strictgeoguardian.core.PluginExecutors;
+import com.zeroends.strictgeoguardian.core.PluginMetrics;
+import com.zeroends.strictgeoguardian.core.PluginScheduler;
+import com.zeroends.strictgeoguardian.core.ProfilerControl;
 import com.zeroends.strictgeoguardian.listener.AuthListener;
+import com.zeroends.strictgeoguardian.listener.LimboListener;
 import com.zeroends.strictgeoguardian.listener.PlayerLoginListener;
+import com.zeroends.strictgeoguardian.listener.PrefetchListener;
+import com.zeroends.strictgeoguardian.service.AdmissionController;
+import com.zeroends.strictgeoguardian.service.ConnectionRateLimiter;
 import com.zeroends.strictgeoguardian.service.FingerprintService;
 import com.zeroends.strictgeoguardian.service.GeoService;
+import com.zeroends.strictgeoguardian.service.LoginThrottle;
+import com.zeroends.strictgeoguardian.service.PasswordHashingService;
+import com.zeroends.strictgeoguardian.service.SessionTicketService;
 import com.zeroends.strictgeoguardian.service.VerificationService;
 import com.zeroends.strictgeoguardian.storage.IAuthStorage;
 import com.zeroends.strictgeoguardian.storage.IDataStorage;
 import com.zeroends.strictgeoguardian.storage.JsonAuthStorage;
 import com.zeroends.strictgeoguardian.storage.JsonStorage;
+import com.zeroends.strictgeoguardian.storage.MappedAuthStorage;
 import com.zeroends.strictgeoguardian.util.InstantAdapter;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.util.Objects;
 
@@ -26,9 +42,21 @@ public final class StrictGeoGuardian extends JavaPlugin {
     private IDataStorage fingerprintStorage;
     private IAuthStorage authStorage;
     private ConfigManager configManager;
+    private PluginScheduler scheduler;
+    private PluginExecutors executors;
+    private PluginMetrics metrics;
+    private MetricsExporter metricsExporter;
+    private ProfilerControl profiler;
+    private LoginTracer tracer;
+    private AuditLog auditLog;
     private GeoService geoService;
     private FingerprintService fingerprintService;
     private VerificationService verificationService;
+    private PasswordHashingService passwordHashingService;
+    private SessionTicketService sessionTicketService;
+    private AdmissionController admissionController;
+    private ConnectionRateLimiter connectionRateLimiter;
+    private LoginThrottle loginThrottle;
     private AuthManager authManager;
     private Gson gson;
 
@@ -36,14 +64,38 @@ public final class StrictGeoGuardian extends JavaPlugin {
     public void onEnable() {
         this.configManager = new ConfigManager(this);
         configManager.loadConfig();
+        this.scheduler = new PluginScheduler(this, configManager.getMainThreadBudgetMs());
+        this.executors = new PluginExecutors(configManager, getLogger());
+        this.metrics = new PluginMetrics();
+        this.profiler = new ProfilerControl(this);
+        this.tracer = new LoginTracer(this, configManager);
 
         this.gson = new GsonBuilder()
                 .registerTypeAdapter(Instant.class, new InstantAdapter())
                 .setPrettyPrinting()
                 .create();
 
-        this.fingerprintStorage = new JsonStorage(this, gson);
-        this.authStorage = new JsonAuthStorage(this);
+        try {
+            this.fingerprintStorage = new JsonStorage(this, gson);
+        } catch (Exception e) {
+            getLogger().severe("Could not open fingerprint storage: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        try {
+            this.auditLog = new AuditLog(this, configManager);
+        } catch (Exception e) {
+            getLogger().severe("Could not open audit log: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
+        try {
+            this.authStorage = createAuthStorage();
+        } catch (Exception e) {
+            getLogger().severe("Could not open authentication storage: " + e.getMessage());
+            getServer().getPluginManager().disablePlugin(this);
+            return;
+        }
 
         this.geoService = new GeoService(this,
                 configManager.getApi1_url(),
@@ -52,23 +104,85 @@ public final class StrictGeoGuardian extends JavaPlugin {
                 configManager.getApi3_url()
         );
         this.fingerprintService = new FingerprintService(this);
-        
-        this.verificationService = new VerificationService(this, fingerprintStorage, authStorage, geoService, fingerprintService, configManager);
-        this.authManager = new AuthManager(this, authStorage, fingerprintStorage, geoService, fingerprintService);
+        this.passwordHashingService = new PasswordHashingService(this,
+                configManager.getHashingThreads(),
+                configManager.getHashingQueueSize(),
+                configManager.getHashingMaxPerPlayer(),
+                configManager.getPasswordAlgorithm(),
+                configManager.getPasswordCost(),
+                configManager.getPasswordTargetMs()
+        );
+        this.sessionTicketService = new SessionTicketService(this, configManager.getSessionTicketWindowSeconds());
+
+        this.loginThrottle = new LoginThrottle(this, gson, configManager);
+        this.admissionController = new AdmissionController(this, configManager);
+        this.connectionRateLimiter = new ConnectionRateLimiter(configManager);
+        this.verificationService = new VerificationService(this, fingerprintStorage, authStorage, geoService, fingerprintService, configManager, sessionTicketService);
+        LimboListener limboListener = new LimboListener(this);
+        this.authManager = new AuthManager(this, authStorage, fingerprintStorage, geoService, fingerprintService, passwordHashingService, sessionTicketService, loginThrottle, limboListener);
         
         verificationService.setAuthManager(authManager);
 
-        getServer().getPluginManager().registerEvents(new PlayerLoginListener(this, verificationService, authManager), this);
+        getServer().getPluginManager().registerEvents(new PlayerLoginListener(this, verificationService, authManager, admissionController, connectionRateLimiter), this);
         getServer().getPluginManager().registerEvents(new AuthListener(this, authManager), this);
+        getServer().getPluginManager().registerEvents(limboListener.guard(), this);
+        if (scheduler.isFolia()) {
+            getServer().getPluginManager().registerEvents(limboListener, this);
+        }
+        if (configManager.isPrefetchOnHandshake() || configManager.isPrefetchOnStatusPing()) {
+            getServer().getPluginManager().registerEvents(new PrefetchListener(this, geoService), this);
+        }
 
         Objects.requireNonNull(getCommand("identity")).setExecutor(new IdentityCommand(this, fingerprintStorage, verificationService, gson));
         Objects.requireNonNull(getCommand("pass")).setExecutor(new PassCommand(authManager));
 
+        if (configManager.isMetricsEndpointEnabled()) {
+            this.metricsExporter = new MetricsExporter(this);
+            metricsExporter.start(configManager.getMetricsEndpointHost(), configManager.getMetricsEndpointPort());
+        }
+
         getLogger().info("StrictGeoGuardian has been enabled. Protecting identities.");
     }
 
+    private IAuthStorage createAuthStorage() throws IOException {
+        if (configManager.getAuthStorageType().equals("mapped")) {
+            return new MappedAuthStorage(this);
+        }
+        return new JsonAuthStorage(this);
+    }
+
     @Override
     public void onDisable() {
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (profiler != null) {
+            profiler.stop();
+        }
+        if (scheduler != null) {
+            scheduler.cancelAll();
+        }
+        if (passwordHashingService != null) {
+            passwordHashingService.shutdown();
+        }
+        if (tracer != null) {
+            tracer.flush();
+        }
+        if (auditLog != null) {
+            auditLog.close();
+        }
+        if (loginThrottle != null) {
+            loginThrottle.save();
+        }
+        if (executors != null) {
+            executors.shutdown();
+        }
+        if (authStorage != null) {
+            authStorage.close();
+        }
+        if (fingerprintStorage != null) {
+            fingerprintStorage.close();
+        }
         getLogger().info("StrictGeoGuardian has been disabled.");
     }
 
@@ -84,6 +198,30 @@ public final class StrictGeoGuardian extends JavaPlugin {
         return configManager;
     }
 
+    public PluginScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public PluginExecutors getExecutors() {
+        return executors;
+    }
+
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ProfilerControl getProfiler() {
+        return profiler;
+    }
+
+    public LoginTracer getTracer() {
+        return tracer;
+    }
+
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
     public GeoService getGeoService() {
         return geoService;
     }
@@ -96,6 +234,26 @@ public final class StrictGeoGuardian extends JavaPlugin {
         return verificationService;
     }
     
+    public PasswordHashingService getPasswordHashingService() {
+        return passwordHashingService;
+    }
+
+    public SessionTicketService getSessionTicketService() {
+        return sessionTicketService;
+    }
+
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
+    public ConnectionRateLimiter getConnectionRateLimiter() {
+        return connectionRateLimiter;
+    }
+
+    public LoginThrottle getLoginThrottle() {
+        return loginThrottle;
+    }
+
     public AuthManager getAuthManager() {
         return authManager;
     }
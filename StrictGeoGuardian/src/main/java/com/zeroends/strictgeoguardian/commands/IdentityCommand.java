@@ -2,16 +2,32 @@ package com.zeroends.strictgeoguardian.commands;
 
 import com.google.gson.Gson;
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.PluginExecutors;
 import com.zeroends.strictgeoguardian.model.Fingerprint;
+import com.zeroends.strictgeoguardian.service.AdmissionController;
+import com.zeroends.strictgeoguardian.service.GeoService;
+import com.zeroends.strictgeoguardian.service.PasswordHashingService;
+import com.zeroends.strictgeoguardian.service.SessionTicketService;
 import com.zeroends.strictgeoguardian.service.VerificationService;
 import com.zeroends.strictgeoguardian.storage.IDataStorage;
+import com.zeroends.strictgeoguardian.util.LatencyHistogram;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
 public class IdentityCommand implements CommandExecutor {
 
     private final StrictGeoGuardian plugin;
@@ -51,10 +67,13 @@ public class IdentityCommand implements CommandExecutor {
                 handleWhitelist(sender, args);
                 break;
             case "audit":
-                sender.sendMessage(Component.text("Audit command is not yet implemented.").color(NamedTextColor.YELLOW));
+                handleAudit(sender, args);
                 break;
             case "stats":
-                sender.sendMessage(Component.text("Stats command is not yet implemented.").color(NamedTextColor.YELLOW));
+                handleStats(sender);
+                break;
+            case "profile":
+                handleProfile(sender, args);
                 break;
             default:
                 sendHelp(sender);
@@ -70,17 +89,15 @@ public class IdentityCommand implements CommandExecutor {
             return;
         }
         String playerName = args[1];
-        fingerprintStorage.loadFingerprint(playerName).thenAccept(fingerprint -> {
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                if (fingerprint == null) {
-                    sender.sendMessage(Component.text("No fingerprint data found for " + playerName).color(NamedTextColor.RED));
-                    return;
-                }
-                String json = gson.toJson(fingerprint);
-                sender.sendMessage(Component.text("Fingerprint for " + playerName + ":").color(NamedTextColor.GOLD));
-                sender.sendMessage(Component.text(json).color(NamedTextColor.GRAY));
-            });
-        });
+        fingerprintStorage.loadFingerprint(playerName).thenAcceptAsync(fingerprint -> {
+            if (fingerprint == null) {
+                sender.sendMessage(Component.text("No fingerprint data found for " + playerName).color(NamedTextColor.RED));
+                return;
+            }
+            String json = gson.toJson(fingerprint);
+            sender.sendMessage(Component.text("Fingerprint for " + playerName + ":").color(NamedTextColor.GOLD));
+            sender.sendMessage(Component.text(json).color(NamedTextColor.GRAY));
+        }, plugin.getScheduler().forSender(sender));
     }
 
     private void handleOverride(CommandSender sender, String[] args) {
@@ -116,6 +133,12 @@ public class IdentityCommand implements CommandExecutor {
         } else if (action.equals("remove")) {
             success = plugin.getConfigManager().removeWhitelist(playerName);
             if (success) {
+                // A ticket issued while whitelisted would otherwise skip the checks on the next join.
+                resolveUuid(playerName).thenAccept(uuid -> {
+                    if (uuid != null) {
+                        plugin.getSessionTicketService().revoke(uuid);
+                    }
+                });
                 sender.sendMessage(Component.text(playerName + " has been removed from the whitelist.").color(NamedTextColor.GREEN));
             } else {
                 sender.sendMessage(Component.text(playerName + " is not on the whitelist.").color(NamedTextColor.YELLOW));
@@ -125,6 +148,148 @@ public class IdentityCommand implements CommandExecutor {
         }
     }
 
+    private void handleAudit(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("Usage: /identity audit <player> [count]").color(NamedTextColor.RED));
+            return;
+        }
+        String playerName = args[1];
+        int limit = 10;
+        if (args.length >= 3) {
+            try {
+                limit = Math.max(1, Math.min(50, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage(Component.text("Count must be a number.").color(NamedTextColor.RED));
+                return;
+            }
+        }
+        int count = limit;
+
+        resolveUuid(playerName).thenCompose(uuid -> uuid == null
+                        ? CompletableFuture.<List<String>>completedFuture(null)
+                        : plugin.getAuditLog().query(uuid, count))
+                .thenAcceptAsync(lines -> {
+                    if (lines == null || lines.isEmpty()) {
+                        sender.sendMessage(Component.text("No audit history found for " + playerName).color(NamedTextColor.RED));
+                        return;
+                    }
+                    sender.sendMessage(Component.text("--- Audit history for " + playerName + " (newest first) ---").color(NamedTextColor.GOLD));
+                    for (String line : lines) {
+                        String[] fields = line.split("\t");
+                        if (fields.length < 5) {
+                            continue;
+                        }
+                        NamedTextColor color = fields[1].equals("LOGIN_ALLOWED") || fields[1].equals("PASSWORD_OK") || fields[1].equals("REGISTERED")
+                                ? NamedTextColor.GREEN : NamedTextColor.RED;
+                        StringBuilder details = new StringBuilder(" ").append(fields[4]).append(" from ").append(fields[3]);
+                        for (int i = 5; i < fields.length; i++) {
+                            details.append(", ").append(fields[i]);
+                        }
+                        sender.sendMessage(Component.text(fields[0].replace('T', ' ').substring(0, 19) + " ").color(NamedTextColor.GRAY)
+                                .append(Component.text(fields[1]).color(color))
+                                .append(Component.text(details.toString()).color(NamedTextColor.GRAY)));
+                    }
+                }, plugin.getScheduler().forSender(sender));
+    }
+
+    private CompletableFuture<UUID> resolveUuid(String playerName) {
+        Player online = plugin.getServer().getPlayerExact(playerName);
+        return online != null
+                ? CompletableFuture.completedFuture(online.getUniqueId())
+                : fingerprintStorage.loadFingerprint(playerName).thenApply(fingerprint -> fingerprint != null ? fingerprint.javaUuid() : null);
+    }
+
+    private void handleStats(CommandSender sender) {
+        sender.sendMessage(Component.text("--- StrictGeoGuardian Stats ---").color(NamedTextColor.GOLD));
+
+        sender.sendMessage(Component.text("Latency (ms): count | p50 | p95 | p99 | max").color(NamedTextColor.AQUA));
+        for (Map.Entry<String, LatencyHistogram> entry : plugin.getMetrics().getStages().entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sender.sendMessage(Component.text(String.format("  %s: %d | %.1f | %.1f | %.1f | %.1f",
+                    entry.getKey(), histogram.getCount(), histogram.percentileMillis(50), histogram.percentileMillis(95),
+                    histogram.percentileMillis(99), histogram.getMaxMillis())).color(NamedTextColor.GRAY));
+        }
+
+        String outcomes = plugin.getMetrics().getOutcomes().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .collect(Collectors.joining(", "));
+        sender.sendMessage(Component.text("Outcomes: ").color(NamedTextColor.AQUA)
+                .append(Component.text(outcomes.isEmpty() ? "none yet" : outcomes).color(NamedTextColor.GRAY)));
+
+        GeoService geo = plugin.getGeoService();
+        SessionTicketService tickets = plugin.getSessionTicketService();
+        long prefetchLookups = geo.getPrefetchHits() + geo.getPrefetchMisses();
+        sender.sendMessage(Component.text("Caches: ").color(NamedTextColor.AQUA).append(Component.text(String.format(
+                "geo prefetch %.1f%% (%d/%d), session tickets %.1f%% (%d active), fingerprint writes skipped %d",
+                prefetchLookups == 0 ? 0.0 : geo.getPrefetchHits() * 100.0 / prefetchLookups, geo.getPrefetchHits(), prefetchLookups,
+                tickets.getHitRate(), tickets.getActiveTickets(), fingerprintStorage.getSkippedWrites())).color(NamedTextColor.GRAY)));
+
+        PasswordHashingService hashing = plugin.getPasswordHashingService();
+        AdmissionController admission = plugin.getAdmissionController();
+        sender.sendMessage(Component.text("Queues: ").color(NamedTextColor.AQUA).append(Component.text(String.format(
+                "hashing %d queued / %d active (%d rejected), admission %d/%d in flight / %d waiting, main thread %d pending",
+                hashing.getQueueDepth(), hashing.getActiveCount(), hashing.getRejected(),
+                admission.getInFlight(), admission.getLimit(), admission.getWaiting(),
+                plugin.getScheduler().getMainThreadQueue().getPending())).color(NamedTextColor.GRAY)));
+
+        for (PluginExecutors.Stage stage : plugin.getExecutors().getStages()) {
+            sender.sendMessage(Component.text(String.format("  executor %s: %d pending, %d done, avg wait %.2f ms",
+                    stage.getName(), stage.getPending(), stage.getCompleted(), stage.getAverageQueueMillis())).color(NamedTextColor.GRAY));
+        }
+
+        sender.sendMessage(Component.text("Protection: ").color(NamedTextColor.AQUA).append(Component.text(String.format(
+                "rate limited %d (ip) / %d (subnet), busy kicks %d, throttle lockouts %d, refused %d",
+                plugin.getConnectionRateLimiter().getIpLimited(), plugin.getConnectionRateLimiter().getPrefixLimited(),
+                admission.getShed() + admission.getTimedOut(),
+                plugin.getLoginThrottle().getLockouts(), plugin.getLoginThrottle().getRefused())).color(NamedTextColor.GRAY)));
+
+        sender.sendMessage(Component.text("Audit: ").color(NamedTextColor.AQUA).append(Component.text(String.format(
+                "%d recorded, %d written, %d pending, %d dropped", plugin.getAuditLog().getRecorded(), plugin.getAuditLog().getWritten(),
+                plugin.getAuditLog().getPending(), plugin.getAuditLog().getDropped())).color(NamedTextColor.GRAY)));
+
+        if (plugin.getTracer().isRecording()) {
+            sender.sendMessage(Component.text("Traces: ").color(NamedTextColor.AQUA).append(Component.text(String.format(
+                    "%d slow, %d sampled, %d dropped", plugin.getTracer().getSlow(), plugin.getTracer().getSampled(),
+                    plugin.getTracer().getDropped())).color(NamedTextColor.GRAY)));
+        }
+    }
+
+    private void handleProfile(CommandSender sender, String[] args) {
+        if (args.length < 2 || !(args[1].equalsIgnoreCase("start") || args[1].equalsIgnoreCase("stop"))) {
+            sender.sendMessage(Component.text("Usage: /identity profile <start|stop>").color(NamedTextColor.RED));
+            return;
+        }
+
+        if (args[1].equalsIgnoreCase("start")) {
+            CompletableFuture.supplyAsync(() -> {
+                try {
+                    return plugin.getProfiler().start();
+                } catch (IOException | ParseException e) {
+                    throw new CompletionException(new IllegalStateException("Could not start recording: " + e.getMessage(), e));
+                }
+            }, plugin.getExecutors().io("profiler")).whenCompleteAsync((file, error) -> {
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    sender.sendMessage(Component.text(cause.getMessage()).color(NamedTextColor.RED));
+                    return;
+                }
+                sender.sendMessage(Component.text("Flight Recorder started. It stops by itself after 15 minutes and will be saved to " + file.getFileName() + ".").color(NamedTextColor.GREEN));
+            }, plugin.getScheduler().forSender(sender));
+            return;
+        }
+
+        CompletableFuture.supplyAsync(() -> plugin.getProfiler().stop(), plugin.getExecutors().io("profiler"))
+                .whenCompleteAsync((file, error) -> {
+                    if (error != null) {
+                        sender.sendMessage(Component.text("Could not stop recording: " + error.getMessage()).color(NamedTextColor.RED));
+                    } else if (file == null) {
+                        sender.sendMessage(Component.text("No recording is running.").color(NamedTextColor.YELLOW));
+                    } else {
+                        sender.sendMessage(Component.text("Recording saved to " + plugin.getDataFolder().toPath().relativize(file) + ".").color(NamedTextColor.GREEN));
+                    }
+                }, plugin.getScheduler().forSender(sender));
+    }
+
     private void sendHelp(CommandSender sender) {
         sender.sendMessage(Component.text("--- StrictGeoGuardian Help ---").color(NamedTextColor.GOLD));
         sender.sendMessage(Component.text("/identity view <player>").color(NamedTextColor.AQUA).append(Component.text(" - View a player's fingerprint.").color(NamedTextColor.GRAY)));
@@ -132,5 +297,6 @@ public class IdentityCommand implements CommandExecutor {
         sender.sendMessage(Component.text("/identity whitelist <add|remove> <player>").color(NamedTextColor.AQUA).append(Component.text(" - Manage player whitelist.").color(NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("/identity audit <player>").color(NamedTextColor.AQUA).append(Component.text(" - View verification history.").color(NamedTextColor.GRAY)));
         sender.sendMessage(Component.text("/identity stats").color(NamedTextColor.AQUA).append(Component.text(" - View plugin performance statistics.").color(NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/identity profile <start|stop>").color(NamedTextColor.AQUA).append(Component.text(" - Capture a Flight Recorder profile.").color(NamedTextColor.GRAY)));
     }
 }
@@ -0,0 +1,239 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.storage.AuditSegmentStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Structured audit trail for logins and password attempts. Producers claim a slot in a
+ * preallocated ring with one CAS and copy references into it, so recording an event neither
+ * allocates nor blocks; when the ring is full the event is counted as dropped. A background
+ * task drains the ring in order, formats the events and appends them to the segment store,
+ * optionally mirroring them to the console from there.
+ */
+public class AuditLog {
+
+    public enum Type {
+        LOGIN_ALLOWED(false),
+        LOGIN_DENIED(true),
+        RATE_LIMITED(true),
+        SERVER_BUSY(true),
+        REGISTERED(false),
+        PASSWORD_OK(false),
+        PASSWORD_FAILED(true),
+        LOCKED_OUT(true),
+        LIMBO_TIMEOUT(true),
+        STORAGE_NOT_READY(true),
+        FINGERPRINT_MISSING(true),
+        DEADLINE_EXCEEDED(true),
+        GEO_LOOKUP_FAILED(true);
+
+        private final boolean warning;
+
+        Type(boolean warning) {
+            this.warning = warning;
+        }
+
+        public boolean isWarning() {
+            return warning;
+        }
+    }
+
+    private static final class Slot {
+        private volatile long published = -1L;
+        private long timestamp;
+        private Type type;
+        private long uuidMsb;
+        private long uuidLsb;
+        private String playerName;
+        private String address;
+        private String outcome;
+        private double score;
+        private String detail;
+    }
+
+    private static final int MAX_BATCH = 4096;
+
+    private final StrictGeoGuardian plugin;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private volatile long tail;
+    private final AuditSegmentStore store;
+    private final String consoleMode;
+
+    // Reused by drain(), which never runs concurrently with itself.
+    private final List<String> batchLines = new ArrayList<>();
+    private final long[] batchUuids = new long[MAX_BATCH * 2];
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+
+    public AuditLog(StrictGeoGuardian plugin, ConfigManager configManager) throws IOException {
+        this.plugin = plugin;
+        int capacity = Integer.highestOneBit(Math.max(64, configManager.getAuditBufferSize() - 1) << 1);
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.consoleMode = configManager.getAuditConsoleMode();
+        this.store = new AuditSegmentStore(new File(plugin.getDataFolder(), "audit").toPath(),
+                configManager.getAuditSegmentSizeMb() * 1024L * 1024L, configManager.getAuditMaxSegments());
+
+        plugin.getScheduler().runAsyncRepeating(this::drain, 10L, 10L);
+    }
+
+    public void record(Type type, UUID uuid, String playerName, String address, String outcome) {
+        record(type, uuid, playerName, address, outcome, Double.NaN, null);
+    }
+
+    public void record(Type type, UUID uuid, String playerName, String address, String outcome, double score, String detail) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.type = type;
+        slot.uuidMsb = uuid.getMostSignificantBits();
+        slot.uuidLsb = uuid.getLeastSignificantBits();
+        slot.playerName = playerName;
+        slot.address = address;
+        slot.outcome = outcome;
+        slot.score = score;
+        slot.detail = detail;
+        slot.published = sequence;
+        recorded.increment();
+    }
+
+    /** Writes everything published so far. Only ever runs on one thread at a time. */
+    public synchronized void drain() {
+        long next = tail;
+        if (slots[(int) (next & mask)].published != next) {
+            return;
+        }
+        List<String> lines = batchLines;
+        long[] uuids = batchUuids;
+        lines.clear();
+        while (lines.size() < MAX_BATCH) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.published != next) {
+                break;
+            }
+            uuids[lines.size() * 2] = slot.uuidMsb;
+            uuids[lines.size() * 2 + 1] = slot.uuidLsb;
+            String line = format(slot);
+            lines.add(line);
+            if (consoleMode.equals("all") || (consoleMode.equals("warnings") && slot.type.isWarning())) {
+                plugin.getLogger().info("[Audit] " + line.substring(line.indexOf('\t') + 1).replace('\t', ' '));
+            }
+            slot.playerName = null;
+            slot.address = null;
+            slot.outcome = null;
+            slot.detail = null;
+            next++;
+        }
+        // Release the slots only after they have been copied out.
+        tail = next;
+
+        try {
+            store.append(uuids, lines);
+            written.add(lines.size());
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write " + lines.size() + " audit events: " + e.getMessage());
+        }
+        boolean full = lines.size() == MAX_BATCH;
+        lines.clear();
+        if (full) {
+            drain();
+        }
+    }
+
+    private static String format(Slot slot) {
+        StringBuilder line = new StringBuilder(160);
+        line.append(Instant.ofEpochMilli(slot.timestamp)).append('\t')
+                .append(slot.type).append('\t')
+                .append(slot.playerName).append('\t')
+                .append(slot.address != null ? slot.address : "-").append('\t')
+                .append(slot.outcome != null ? slot.outcome : "-");
+        if (!Double.isNaN(slot.score)) {
+            appendScore(line.append("\tscore="), slot.score);
+        }
+        if (slot.detail != null) {
+            line.append('\t').append(slot.detail);
+        }
+        return line.toString();
+    }
+
+    /** Appends the score with two decimals, like {@code %.2f} but without a Formatter. */
+    static void appendScore(StringBuilder line, double score) {
+        long hundredths = Math.round(Math.abs(score) * 100.0);
+        if (score < 0 && hundredths != 0) {
+            line.append('-');
+        }
+        long fraction = hundredths % 100;
+        line.append(hundredths / 100).append('.');
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    /**
+     * Most recent audit lines for a player, newest first. Each line is tab-separated:
+     * time, type, player, address, outcome, then optional score and detail.
+     */
+    public CompletableFuture<List<String>> query(UUID uuid, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            drain();
+            try {
+                return store.query(uuid, limit);
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not read audit history: " + e.getMessage());
+                return Collections.<String>emptyList();
+            }
+        }, plugin.getExecutors().io("audit"));
+    }
+
+    public void close() {
+        drain();
+        try {
+            store.close();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not close audit log: " + e.getMessage());
+        }
+    }
+
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getPending() {
+        return head.get() - tail;
+    }
+}
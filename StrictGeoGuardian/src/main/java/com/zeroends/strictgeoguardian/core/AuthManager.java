@@ -1,80 +1,176 @@
 package com.zeroends.strictgeoguardian.core;
 
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.listener.LimboListener;
 import com.zeroends.strictgeoguardian.model.AuthStatus;
 import com.zeroends.strictgeoguardian.model.GeoData;
+import com.zeroends.strictgeoguardian.model.PlayerSession;
 import com.zeroends.strictgeoguardian.service.FingerprintService;
 import com.zeroends.strictgeoguardian.service.GeoService;
+import com.zeroends.strictgeoguardian.service.LoginThrottle;
+import com.zeroends.strictgeoguardian.service.PasswordHashingService;
+import com.zeroends.strictgeoguardian.service.SessionTicketService;
 import com.zeroends.strictgeoguardian.storage.IAuthStorage;
 import com.zeroends.strictgeoguardian.storage.IDataStorage;
-import com.zeroends.strictgeoguardian.util.PasswordUtil;
+import com.zeroends.strictgeoguardian.util.StripedSerialExecutor;
+import com.zeroends.strictgeoguardian.util.TimingWheel;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.bukkit.entity.Player;
 
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 public class AuthManager {
 
+    // Sessions created at pre-login that never see a join (denied later, client gave up) are dropped after this.
+    private static final long PENDING_SESSION_EXPIRY_TICKS = 20L * 60L;
+
     private final StrictGeoGuardian plugin;
     private final IAuthStorage authStorage;
     private final IDataStorage fingerprintStorage;
     private final GeoService geoService;
     private final FingerprintService fingerprintService;
+    private final PasswordHashingService hashingService;
+    private final SessionTicketService sessionTickets;
+    private final LoginThrottle loginThrottle;
+    private final LimboListener limboListener;
 
-    private final ConcurrentHashMap<UUID, AuthStatus> playerStatus;
-    private final ConcurrentHashMap<UUID, GeoData> pendingGeoData;
-    private final ConcurrentHashMap<UUID, Integer> loginAttempts;
+    private final ConcurrentHashMap<UUID, PlayerSession> sessions;
+    private final TimingWheel timingWheel;
+    // Every mutation of a player's session goes through that player's stripe, in order.
+    private final StripedSerialExecutor playerState;
 
-    public AuthManager(StrictGeoGuardian plugin, IAuthStorage authStorage, IDataStorage fingerprintStorage, GeoService geoService, FingerprintService fingerprintService) {
+    public AuthManager(StrictGeoGuardian plugin, IAuthStorage authStorage, IDataStorage fingerprintStorage, GeoService geoService, FingerprintService fingerprintService, PasswordHashingService hashingService, SessionTicketService sessionTickets, LoginThrottle loginThrottle, LimboListener limboListener) {
         this.plugin = plugin;
         this.authStorage = authStorage;
         this.fingerprintStorage = fingerprintStorage;
         this.geoService = geoService;
         this.fingerprintService = fingerprintService;
+        this.hashingService = hashingService;
+        this.sessionTickets = sessionTickets;
+        this.loginThrottle = loginThrottle;
+        this.limboListener = limboListener;
+
+        this.sessions = new ConcurrentHashMap<>();
+        this.timingWheel = new TimingWheel(512, plugin.getLogger());
+        plugin.getScheduler().runRepeating(timingWheel::advance, 1L, 1L);
+        this.playerState = new StripedSerialExecutor(64, plugin.getExecutors().cpu("player-state"), plugin.getLogger());
+    }
+
+    private PlayerSession session(UUID uuid) {
+        return sessions.computeIfAbsent(uuid, this::newSession);
+    }
+
+    private PlayerSession newSession(UUID uuid) {
+        PlayerSession session = new PlayerSession(uuid);
+        session.setExpiry(timingWheel.schedule(() -> playerState.execute(uuid, () -> {
+            if (!session.isJoined()) {
+                sessions.remove(uuid, session);
+            }
+        }), PENDING_SESSION_EXPIRY_TICKS));
+        return session;
+    }
 
-        this.playerStatus = new ConcurrentHashMap<>();
-        this.pendingGeoData = new ConcurrentHashMap<>();
-        this.loginAttempts = new ConcurrentHashMap<>();
+    private void endSession(UUID uuid) {
+        PlayerSession session = sessions.remove(uuid);
+        if (session != null) {
+            session.cancelTimers();
+            limboListener.leave(uuid);
+        }
     }
 
+    /**
+     * Anything short of AUTHENTICATED is applied before pre-login returns, so the join can never
+     * see the "no session" default and skip limbo. A session left over from an earlier connection
+     * is replaced rather than reused, so that connection's queued quit cannot end it.
+     */
     public void setPlayerStatus(UUID uuid, AuthStatus status) {
         if (status == AuthStatus.AUTHENTICATED) {
-            playerStatus.remove(uuid);
-            loginAttempts.remove(uuid);
-        } else {
-            playerStatus.put(uuid, status);
+            playerState.execute(uuid, () -> endSession(uuid));
+            return;
         }
+        sessions.compute(uuid, (key, current) -> {
+            PlayerSession session = current;
+            if (session == null || session.isJoined()) {
+                session = newSession(key);
+                if (current != null) {
+                    current.cancelTimers();
+                    session.setPendingGeoData(current.takePendingGeoData());
+                }
+            }
+            session.setStatus(status);
+            return session;
+        });
     }
 
     public AuthStatus getPlayerStatus(UUID uuid) {
-        return playerStatus.getOrDefault(uuid, AuthStatus.AUTHENTICATED);
+        PlayerSession session = sessions.get(uuid);
+        return session != null ? session.getStatus() : AuthStatus.AUTHENTICATED;
     }
     
     public void storePendingGeoData(UUID uuid, GeoData geoData) {
-        this.pendingGeoData.put(uuid, geoData);
+        playerState.execute(uuid, () -> session(uuid).setPendingGeoData(geoData));
     }
 
+    /**
+     * Called on the join thread. The limbo guards are armed here, before the join completes;
+     * timers and reminders are set up on the player's stripe.
+     */
     public void handlePlayerJoin(Player player) {
+        if (isPlayerInLimbo(player.getUniqueId())) {
+            limboListener.enter(player.getUniqueId());
+        }
+        playerState.execute(player.getUniqueId(), () -> startLimbo(player));
+    }
+
+    private void startLimbo(Player player) {
         UUID uuid = player.getUniqueId();
-        AuthStatus status = playerStatus.getOrDefault(uuid, AuthStatus.PENDING_VERIFICATION);
+        PlayerSession session = sessions.get(uuid);
 
+        if (session == null) {
+            return;
+        }
+        session.markJoined();
+        AuthStatus status = session.getStatus();
         if (status == AuthStatus.AUTHENTICATED) {
             return;
         }
+        limboListener.enter(uuid);
+
+        long timeoutTicks = plugin.getConfigManager().getLimboTimeoutSeconds() * 20L;
+        if (timeoutTicks > 0) {
+            session.setExpiry(timingWheel.schedule(() -> plugin.getScheduler().forPlayer(player).execute(() -> kickForTimeout(player, session)), timeoutTicks));
+        }
+        session.setReminder(timingWheel.schedule(() -> plugin.getScheduler().forPlayer(player).execute(() -> remind(player, session)), 40L));
+    }
 
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            if (!player.isOnline() || !isPlayerInLimbo(uuid)) return;
+    private void remind(Player player, PlayerSession session) {
+        if (!player.isOnline() || sessions.get(session.getUuid()) != session) return;
 
-            if (status == AuthStatus.NEEDS_REGISTRATION) {
-                player.sendTitle("§a§lSelamat Datang!", "§fKetik §e/pass <password_baru> §funtuk mendaftar", 10, 100, 20);
-            } else if (status == AuthStatus.NEEDS_LOGIN) {
-                player.sendTitle("§c§lVerifikasi Dibutuhkan", "§fKetik §e/pass <password_anda> §funtuk login", 10, 100, 20);
-            } else {
-                setPlayerStatus(uuid, AuthStatus.AUTHENTICATED);
-            }
-        }, 40L); 
+        AuthStatus status = session.getStatus();
+        if (status == AuthStatus.NEEDS_REGISTRATION) {
+            player.sendTitle("§a§lSelamat Datang!", "§fKetik §e/pass <password_baru> §funtuk mendaftar", 10, 100, 20);
+        } else if (status == AuthStatus.NEEDS_LOGIN) {
+            player.sendTitle("§c§lVerifikasi Dibutuhkan", "§fKetik §e/pass <password_anda> §funtuk login", 10, 100, 20);
+        } else {
+            setPlayerStatus(session.getUuid(), AuthStatus.AUTHENTICATED);
+            return;
+        }
+
+        long intervalTicks = plugin.getConfigManager().getLimboReminderSeconds() * 20L;
+        if (intervalTicks > 0) {
+            session.setReminder(timingWheel.schedule(() -> plugin.getScheduler().forPlayer(player).execute(() -> remind(player, session)), intervalTicks));
+        }
+    }
+
+    private void kickForTimeout(Player player, PlayerSession session) {
+        if (!player.isOnline() || sessions.get(session.getUuid()) != session) return;
+        plugin.getAuditLog().record(AuditLog.Type.LIMBO_TIMEOUT, session.getUuid(), player.getName(), null, session.getStatus().name());
+        player.kick(Component.text("Waktu verifikasi habis. Silakan masuk kembali dan gunakan /pass.").color(NamedTextColor.RED));
     }
 
     public void handlePasswordInput(Player player, String password) {
@@ -90,56 +186,144 @@ public class AuthManager {
 
     private void attemptRegistration(Player player, String password) {
         UUID uuid = player.getUniqueId();
-        String hash = PasswordUtil.hashPassword(password);
-        authStorage.savePasswordHash(uuid, player.getName(), hash).thenRun(() -> {
-            plugin.getServer().getScheduler().runTask(plugin, () -> {
-                GeoData geoData = pendingGeoData.remove(uuid);
-                if (geoData != null) {
-                    fingerprintService.createFingerprint(player.getName(), uuid, player.getAddress().getHostString(), geoData)
-                            .thenAccept(fingerprintStorage::saveFingerprint);
-                }
-                setPlayerStatus(uuid, AuthStatus.AUTHENTICATED);
-                player.sendTitle("§aRegistrasi Berhasil!", "§7Selamat datang di server!", 10, 70, 20);
-            });
-        });
+        String ipAddress = player.getAddress().getHostString();
+        hashingService.hash(uuid, password)
+                .thenCompose(hash -> authStorage.savePasswordHash(uuid, player.getName(), hash))
+                .thenRunAsync(() -> {
+                    PlayerSession session = sessions.get(uuid);
+                    if (session == null || !session.transition(AuthStatus.NEEDS_REGISTRATION, AuthStatus.AUTHENTICATED)) {
+                        return;
+                    }
+                    endSession(uuid);
+                    sessionTickets.revoke(uuid);
+                    plugin.getAuditLog().record(AuditLog.Type.REGISTERED, uuid, player.getName(), ipAddress, null);
+                    GeoData geoData = session.takePendingGeoData();
+                    if (geoData != null) {
+                        fingerprintService.createFingerprint(player.getName(), uuid, ipAddress, geoData)
+                                .thenAccept(fingerprintStorage::saveFingerprint);
+                    }
+                    plugin.getScheduler().forPlayer(player).execute(() ->
+                            player.sendTitle("§aRegistrasi Berhasil!", "§7Selamat datang di server!", 10, 70, 20));
+                }, playerState.forKey(uuid))
+                .exceptionally(ex -> handleHashingFailure(player, ex));
     }
 
     private void attemptLogin(Player player, String password) {
         UUID uuid = player.getUniqueId();
-        authStorage.getPasswordHash(uuid).thenAccept(hash -> {
-            if (PasswordUtil.checkPassword(password, hash)) {
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    setPlayerStatus(uuid, AuthStatus.AUTHENTICATED);
-                    player.sendTitle("§aVerifikasi Berhasil!", "§7Selamat datang kembali!", 10, 70, 20);
-                    
-                    GeoData latestGeoData = pendingGeoData.remove(uuid);
-                    if (latestGeoData != null) {
-                        plugin.getLogger().info("Password correct. Updating fingerprint for " + player.getName() + " to new location.");
-                        fingerprintService.createFingerprint(player.getName(), uuid, player.getAddress().getHostString(), latestGeoData)
-                                .thenAccept(fingerprintStorage::saveFingerprint);
+        InetAddress address = player.getAddress().getAddress();
+        String ipAddress = player.getAddress().getHostString();
+        long lockoutMillis = loginThrottle.getLockoutMillis(uuid, address);
+        if (lockoutMillis > 0) {
+            player.sendMessage(Component.text("Terlalu banyak percobaan login. Coba lagi dalam " + ((lockoutMillis + 999) / 1000) + " detik.").color(NamedTextColor.RED));
+            sessionTickets.revoke(uuid);
+            plugin.getAuditLog().record(AuditLog.Type.LOCKED_OUT, uuid, player.getName(), ipAddress, null);
+            return;
+        }
+
+        authStorage.getPasswordHash(uuid)
+                .thenCompose(hash -> hashingService.verify(uuid, password, hash).thenApply(correct -> {
+                    if (correct) {
+                        rehashIfNeeded(player, password, hash);
                     }
-                });
-            } else {
-                plugin.getServer().getScheduler().runTask(plugin, () -> {
-                    int attempts = loginAttempts.getOrDefault(uuid, 0) + 1;
-                    loginAttempts.put(uuid, attempts);
-                    if (attempts >= 3) {
-                        player.kick(Component.text("Terlalu banyak percobaan login. Silakan hubungi staff.").color(NamedTextColor.RED));
+                    return correct;
+                }))
+                .thenAccept(correct -> {
+                    if (correct) {
+                        loginThrottle.recordSuccess(uuid);
+                        playerState.execute(uuid, () -> {
+                            PlayerSession session = sessions.get(uuid);
+                            if (session == null || !session.transition(AuthStatus.NEEDS_LOGIN, AuthStatus.AUTHENTICATED)) {
+                                return;
+                            }
+                            endSession(uuid);
+                            plugin.getScheduler().forPlayer(player).execute(() ->
+                                    player.sendTitle("§aVerifikasi Berhasil!", "§7Selamat datang kembali!", 10, 70, 20));
+
+                            GeoData latestGeoData = session.takePendingGeoData();
+                            plugin.getAuditLog().record(AuditLog.Type.PASSWORD_OK, uuid, player.getName(), ipAddress,
+                                    latestGeoData != null ? "fingerprintUpdated" : null);
+                            if (latestGeoData != null) {
+                                sessionTickets.revoke(uuid);
+                                fingerprintService.createFingerprint(player.getName(), uuid, ipAddress, latestGeoData)
+                                        .thenAccept(fingerprintStorage::saveFingerprint);
+                            }
+                        });
                     } else {
-                        player.sendTitle("§cPassword Salah!", "§7Sisa percobaan: " + (3 - attempts), 10, 40, 10);
+                        int remaining = loginThrottle.recordFailure(uuid, address);
+                        sessionTickets.revoke(uuid);
+                        plugin.getAuditLog().record(remaining <= 0 ? AuditLog.Type.LOCKED_OUT : AuditLog.Type.PASSWORD_FAILED,
+                                uuid, player.getName(), ipAddress, null);
+                        plugin.getScheduler().forPlayer(player).execute(() -> {
+                            if (remaining <= 0) {
+                                player.kick(Component.text("Terlalu banyak percobaan login. Silakan hubungi staff.").color(NamedTextColor.RED));
+                            } else {
+                                player.sendTitle("§cPassword Salah!", "§7Sisa percobaan: " + remaining, 10, 40, 10);
+                            }
+                        });
                     }
+                })
+                .exceptionally(ex -> handleHashingFailure(player, ex));
+    }
+
+    private void rehashIfNeeded(Player player, String password, String hash) {
+        if (!plugin.getConfigManager().isPasswordRehashOnLogin() || !hashingService.needsRehash(hash)) {
+            return;
+        }
+        UUID uuid = player.getUniqueId();
+        hashingService.hash(uuid, password)
+                .thenCompose(newHash -> authStorage.savePasswordHash(uuid, player.getName(), newHash))
+                .exceptionally(ex -> {
+                    plugin.getLogger().warning("Could not upgrade password hash for " + player.getName() + ": " + ex.getMessage());
+                    return null;
                 });
+    }
+
+    private Void handleHashingFailure(Player player, Throwable ex) {
+        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+        plugin.getScheduler().forPlayer(player).execute(() -> {
+            if (cause instanceof RejectedExecutionException) {
+                player.sendMessage(Component.text("Server sedang sibuk memproses password. Silakan coba lagi sebentar.").color(NamedTextColor.YELLOW));
+            } else {
+                plugin.getLogger().severe("Password processing failed for " + player.getName() + ": " + cause.getMessage());
+                player.sendMessage(Component.text("Terjadi kesalahan saat memproses password. Silakan coba lagi.").color(NamedTextColor.RED));
             }
         });
+        return null;
     }
 
     public void handlePlayerQuit(Player player) {
-        playerStatus.remove(player.getUniqueId());
-        pendingGeoData.remove(player.getUniqueId());
-        loginAttempts.remove(player.getUniqueId());
+        UUID uuid = player.getUniqueId();
+        InetSocketAddress address = player.getAddress();
+        PlayerSession connected = sessions.get(uuid);
+        playerState.execute(uuid, () -> {
+            PlayerSession session = sessions.get(uuid);
+            if (session != null && session != connected) {
+                return; // already reconnected; the session belongs to the new connection
+            }
+            if (!isPlayerInLimbo(uuid) && address != null) {
+                sessionTickets.issue(uuid, address.getAddress().getHostAddress());
+            }
+            endSession(uuid);
+        });
+    }
+
+    /** Players that have joined and still have to use /pass. */
+    public int getLimboPopulation() {
+        int count = 0;
+        for (PlayerSession session : sessions.values()) {
+            if (session.isJoined() && session.getStatus() != AuthStatus.AUTHENTICATED) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getPendingSessions() {
+        return sessions.size();
     }
 
     public boolean isPlayerInLimbo(UUID uuid) {
-        return playerStatus.containsKey(uuid);
+        PlayerSession session = sessions.get(uuid);
+        return session != null && session.getStatus() != AuthStatus.AUTHENTICATED;
     }
 }
@@ -16,6 +16,57 @@ public class ConfigManager {
     private String api2_url;
     private String api3_url;
     private String hmacKey;
+    private String authStorageType;
+    private boolean authLazyShards;
+    private String fingerprintFormat;
+    private long storageReadyTimeoutMs;
+    private int auditBufferSize;
+    private long auditSegmentSizeMb;
+    private int auditMaxSegments;
+    private String auditConsoleMode;
+    private long verificationDeadlineMs;
+    private boolean verificationFailOpen;
+    private long limboTimeoutSeconds;
+    private long limboReminderSeconds;
+    private String passwordAlgorithm;
+    private int passwordCost;
+    private long passwordTargetMs;
+    private boolean passwordRehashOnLogin;
+    private long sessionTicketWindowSeconds;
+    private int throttleMaxPerAccount;
+    private int throttleMaxPerIp;
+    private int throttleMaxPerPrefix;
+    private long throttleBaseLockoutSeconds;
+    private long throttleMaxLockoutSeconds;
+    private long throttleResetAfterMinutes;
+    private boolean prefetchOnHandshake;
+    private boolean prefetchOnStatusPing;
+    private long prefetchTtlSeconds;
+    private int prefetchMaxEntries;
+    private long mainThreadBudgetMs;
+    private boolean metricsEndpointEnabled;
+    private boolean tracingEnabled;
+    private double traceSampleRate;
+    private long traceSlowThresholdMs;
+    private long traceMaxFileSizeMb;
+    private int traceMaxFiles;
+    private String metricsEndpointHost;
+    private int metricsEndpointPort;
+    private String ioExecutorType;
+    private int ioThreads;
+    private int cpuThreads;
+    private int hashingThreads;
+    private boolean rateLimitEnabled;
+    private long rateLimitWindowSeconds;
+    private int rateLimitPerIp;
+    private int rateLimitPerPrefix;
+    private int admissionMaxInFlight;
+    private int admissionReservedForKnown;
+    private int admissionQueueSize;
+    private long admissionMaxWaitMs;
+    private boolean admissionAdaptToTps;
+    private int hashingQueueSize;
+    private int hashingMaxPerPlayer;
     private double geoToleranceKm;
     private double scoreAutoAllow;
     private double scoreAllowMonitor;
@@ -46,6 +97,68 @@ public class ConfigManager {
             plugin.saveConfig();
         }
 
+        authStorageType = config.getString("storage.auth-backend", "json").toLowerCase();
+        authLazyShards = config.getBoolean("storage.auth-lazy-shards", false);
+        fingerprintFormat = config.getString("storage.fingerprint-format", "json").toLowerCase();
+        storageReadyTimeoutMs = config.getLong("storage.ready-timeout-ms", 5000L);
+        auditBufferSize = Math.max(64, config.getInt("storage.audit.buffer-size", 8192));
+        auditSegmentSizeMb = Math.max(1L, config.getLong("storage.audit.segment-size-mb", 8L));
+        auditMaxSegments = Math.max(1, config.getInt("storage.audit.max-segments", 16));
+        auditConsoleMode = config.getString("storage.audit.console", "all").toLowerCase();
+
+        passwordAlgorithm = config.getString("security.password.algorithm", "bcrypt").toLowerCase();
+        passwordCost = config.getInt("security.password.cost", 0);
+        passwordTargetMs = config.getLong("security.password.target-ms", 50L);
+        passwordRehashOnLogin = config.getBoolean("security.password.rehash-on-login", true);
+
+        sessionTicketWindowSeconds = config.getBoolean("security.session-tickets.enabled", true)
+                ? config.getLong("security.session-tickets.window-seconds", 90L) : 0L;
+
+        throttleMaxPerAccount = Math.max(1, config.getInt("security.login-throttle.max-per-account", 3));
+        throttleMaxPerIp = Math.max(1, config.getInt("security.login-throttle.max-per-ip", 6));
+        throttleMaxPerPrefix = Math.max(1, config.getInt("security.login-throttle.max-per-prefix", 20));
+        throttleBaseLockoutSeconds = Math.max(1L, config.getLong("security.login-throttle.base-lockout-seconds", 30L));
+        throttleMaxLockoutSeconds = Math.max(throttleBaseLockoutSeconds, config.getLong("security.login-throttle.max-lockout-seconds", 3600L));
+        throttleResetAfterMinutes = Math.max(1L, config.getLong("security.login-throttle.reset-after-minutes", 60L));
+
+        prefetchOnHandshake = config.getBoolean("performance.geo-prefetch.on-handshake", true);
+        prefetchOnStatusPing = config.getBoolean("performance.geo-prefetch.on-status-ping", false);
+        prefetchTtlSeconds = config.getLong("performance.geo-prefetch.ttl-seconds", 30L);
+        prefetchMaxEntries = Math.max(1, config.getInt("performance.geo-prefetch.max-entries", 256));
+
+        rateLimitEnabled = config.getBoolean("performance.rate-limit.enabled", true);
+        rateLimitWindowSeconds = Math.max(1L, config.getLong("performance.rate-limit.window-seconds", 60L));
+        rateLimitPerIp = Math.max(1, config.getInt("performance.rate-limit.per-ip", 10));
+        rateLimitPerPrefix = Math.max(1, config.getInt("performance.rate-limit.per-prefix", 30));
+
+        admissionMaxInFlight = Math.max(1, config.getInt("performance.admission.max-in-flight", 32));
+        admissionReservedForKnown = Math.max(0, config.getInt("performance.admission.reserved-for-known", 8));
+        admissionQueueSize = Math.max(0, config.getInt("performance.admission.queue-size", 64));
+        admissionMaxWaitMs = Math.max(0L, config.getLong("performance.admission.max-wait-ms", 5000L));
+        admissionAdaptToTps = config.getBoolean("performance.admission.adapt-to-tps", true);
+
+        mainThreadBudgetMs = Math.max(1L, config.getLong("performance.main-thread-budget-ms", 2L));
+        metricsEndpointEnabled = config.getBoolean("performance.metrics-endpoint.enabled", false);
+        metricsEndpointHost = config.getString("performance.metrics-endpoint.host", "127.0.0.1");
+        metricsEndpointPort = config.getInt("performance.metrics-endpoint.port", 9464);
+        tracingEnabled = config.getBoolean("performance.tracing.enabled", true);
+        traceSampleRate = Math.max(0.0, Math.min(1.0, config.getDouble("performance.tracing.sample-rate", 0.0)));
+        traceSlowThresholdMs = Math.max(0L, config.getLong("performance.tracing.slow-threshold-ms", 3000L));
+        traceMaxFileSizeMb = Math.max(1L, config.getLong("performance.tracing.max-file-size-mb", 10L));
+        traceMaxFiles = Math.max(1, config.getInt("performance.tracing.max-files", 5));
+        ioExecutorType = config.getString("performance.executors.io", "virtual").toLowerCase();
+        ioThreads = Math.max(1, config.getInt("performance.executors.io-threads", 32));
+        cpuThreads = Math.max(1, config.getInt("performance.executors.cpu-threads", 2));
+
+        hashingThreads = Math.max(1, config.getInt("performance.hashing.threads", 2));
+        hashingQueueSize = Math.max(1, config.getInt("performance.hashing.queue-size", 64));
+        hashingMaxPerPlayer = Math.max(1, config.getInt("performance.hashing.max-per-player", 1));
+
+        verificationDeadlineMs = config.getLong("rules.verification.deadline-ms", 15000L);
+        verificationFailOpen = config.getString("rules.verification.on-deadline", "fail-closed").equalsIgnoreCase("fail-open");
+        limboTimeoutSeconds = Math.max(0L, config.getLong("rules.limbo.timeout-seconds", 120L));
+        limboReminderSeconds = Math.max(0L, config.getLong("rules.limbo.reminder-interval-seconds", 15L));
+
         geoToleranceKm = config.getDouble("rules.strict-geo.tolerance-km", 10.0);
         scoreAutoAllow = config.getDouble("rules.scores.auto-allow", 80.0);
         scoreAllowMonitor = config.getDouble("rules.scores.allow-monitor", 60.0);
@@ -98,6 +211,210 @@ public class ConfigManager {
         return hmacKey;
     }
 
+    public String getAuthStorageType() {
+        return authStorageType;
+    }
+
+    public boolean isAuthLazyShards() {
+        return authLazyShards;
+    }
+
+    public String getFingerprintFormat() {
+        return fingerprintFormat;
+    }
+
+    public long getStorageReadyTimeoutMs() {
+        return storageReadyTimeoutMs;
+    }
+
+    public int getAuditBufferSize() {
+        return auditBufferSize;
+    }
+
+    public long getAuditSegmentSizeMb() {
+        return auditSegmentSizeMb;
+    }
+
+    public int getAuditMaxSegments() {
+        return auditMaxSegments;
+    }
+
+    public String getAuditConsoleMode() {
+        return auditConsoleMode;
+    }
+
+    public String getPasswordAlgorithm() {
+        return passwordAlgorithm;
+    }
+
+    public int getPasswordCost() {
+        return passwordCost;
+    }
+
+    public long getPasswordTargetMs() {
+        return passwordTargetMs;
+    }
+
+    public boolean isPasswordRehashOnLogin() {
+        return passwordRehashOnLogin;
+    }
+
+    public long getSessionTicketWindowSeconds() {
+        return sessionTicketWindowSeconds;
+    }
+
+    public int getThrottleMaxPerAccount() {
+        return throttleMaxPerAccount;
+    }
+
+    public int getThrottleMaxPerIp() {
+        return throttleMaxPerIp;
+    }
+
+    public int getThrottleMaxPerPrefix() {
+        return throttleMaxPerPrefix;
+    }
+
+    public long getThrottleBaseLockoutSeconds() {
+        return throttleBaseLockoutSeconds;
+    }
+
+    public long getThrottleMaxLockoutSeconds() {
+        return throttleMaxLockoutSeconds;
+    }
+
+    public long getThrottleResetAfterMinutes() {
+        return throttleResetAfterMinutes;
+    }
+
+    public boolean isPrefetchOnHandshake() {
+        return prefetchOnHandshake;
+    }
+
+    public boolean isPrefetchOnStatusPing() {
+        return prefetchOnStatusPing;
+    }
+
+    public long getPrefetchTtlSeconds() {
+        return prefetchTtlSeconds;
+    }
+
+    public int getPrefetchMaxEntries() {
+        return prefetchMaxEntries;
+    }
+
+    public boolean isRateLimitEnabled() {
+        return rateLimitEnabled;
+    }
+
+    public long getRateLimitWindowSeconds() {
+        return rateLimitWindowSeconds;
+    }
+
+    public int getRateLimitPerIp() {
+        return rateLimitPerIp;
+    }
+
+    public int getRateLimitPerPrefix() {
+        return rateLimitPerPrefix;
+    }
+
+    public int getAdmissionMaxInFlight() {
+        return admissionMaxInFlight;
+    }
+
+    public int getAdmissionReservedForKnown() {
+        return admissionReservedForKnown;
+    }
+
+    public int getAdmissionQueueSize() {
+        return admissionQueueSize;
+    }
+
+    public long getAdmissionMaxWaitMs() {
+        return admissionMaxWaitMs;
+    }
+
+    public boolean isAdmissionAdaptToTps() {
+        return admissionAdaptToTps;
+    }
+
+    public long getMainThreadBudgetMs() {
+        return mainThreadBudgetMs;
+    }
+
+    public boolean isMetricsEndpointEnabled() {
+        return metricsEndpointEnabled;
+    }
+
+    public String getMetricsEndpointHost() {
+        return metricsEndpointHost;
+    }
+
+    public int getMetricsEndpointPort() {
+        return metricsEndpointPort;
+    }
+
+    public boolean isTracingEnabled() {
+        return tracingEnabled;
+    }
+
+    public double getTraceSampleRate() {
+        return traceSampleRate;
+    }
+
+    public long getTraceSlowThresholdMs() {
+        return traceSlowThresholdMs;
+    }
+
+    public long getTraceMaxFileSizeMb() {
+        return traceMaxFileSizeMb;
+    }
+
+    public int getTraceMaxFiles() {
+        return traceMaxFiles;
+    }
+
+    public String getIoExecutorType() {
+        return ioExecutorType;
+    }
+
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    public int getCpuThreads() {
+        return cpuThreads;
+    }
+
+    public int getHashingThreads() {
+        return hashingThreads;
+    }
+
+    public int getHashingQueueSize() {
+        return hashingQueueSize;
+    }
+
+    public int getHashingMaxPerPlayer() {
+        return hashingMaxPerPlayer;
+    }
+
+    public long getVerificationDeadlineMs() {
+        return verificationDeadlineMs;
+    }
+
+    public boolean isVerificationFailOpen() {
+        return verificationFailOpen;
+    }
+
+    public long getLimboTimeoutSeconds() {
+        return limboTimeoutSeconds;
+    }
+
+    public long getLimboReminderSeconds() {
+        return limboReminderSeconds;
+    }
+
     public double getGeoToleranceKm() {
         return geoToleranceKm;
     }
@@ -0,0 +1,113 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.util.HashUtils;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import java.util.List;
+
+/**
+ * Java Flight Recorder events for each verification stage. Fields are only filled in after
+ * {@code shouldCommit()}, so when no recording is running an event costs a begin/end pair.
+ * Player and address fields are truncated SHA-256 hashes, never the raw values.
+ */
+public final class FlightRecorderEvents {
+
+    private static final String CATEGORY = "StrictGeoGuardian";
+
+    private FlightRecorderEvents() {
+    }
+
+    public static List<Class<? extends Event>> all() {
+        return List.of(Verification.class, GeoLookup.class, Storage.class, FingerprintScore.class, PasswordHash.class);
+    }
+
+    public static String hash(Object value) {
+        return value == null ? null : HashUtils.sha256(value.toString()).substring(0, 16);
+    }
+
+    @Name("strictgeoguardian.Verification")
+    @Label("Login Verification")
+    @Description("One verifyPlayer call, from pre-login to decision")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class Verification extends Event {
+        @Label("Player Hash")
+        public String player;
+        @Label("Address Hash")
+        public String address;
+        @Label("Provider")
+        @Description("Geo check that decided the result, if any")
+        public String provider;
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("strictgeoguardian.GeoLookup")
+    @Label("Geo Lookup")
+    @Description("One HTTP request to a geo provider")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class GeoLookup extends Event {
+        @Label("Address Hash")
+        public String address;
+        @Label("Provider")
+        public String provider;
+        @Label("Outcome")
+        public String outcome;
+        @Label("HTTP Status")
+        public int status;
+    }
+
+    @Name("strictgeoguardian.Storage")
+    @Label("Fingerprint Storage")
+    @Description("One fingerprint file read, write or delete")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class Storage extends Event {
+        @Label("Player Hash")
+        @Description("Hash of the player UUID when known, otherwise of the lower-case name")
+        public String player;
+        @Label("Operation")
+        public String operation;
+        @Label("Outcome")
+        public String outcome;
+    }
+
+    @Name("strictgeoguardian.FingerprintScore")
+    @Label("Fingerprint Scoring")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class FingerprintScore extends Event {
+        @Label("Player Hash")
+        public String player;
+        @Label("Score")
+        public double score;
+    }
+
+    @Name("strictgeoguardian.PasswordHash")
+    @Label("Password Hashing")
+    @Description("One password hash or verification on a hasher thread; queue wait is a separate field")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    public static final class PasswordHash extends Event {
+        @Label("Player Hash")
+        public String player;
+        @Label("Operation")
+        public String operation;
+        @Label("Algorithm")
+        public String algorithm;
+        @Label("Cost")
+        public int cost;
+        @Label("Outcome")
+        public String outcome;
+        @Label("Queue Wait")
+        @Timespan(Timespan.NANOSECONDS)
+        public long queueWait;
+    }
+}
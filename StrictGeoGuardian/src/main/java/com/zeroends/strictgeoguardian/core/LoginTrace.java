@@ -0,0 +1,150 @@
+package com.zeroends.strictgeoguardian.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Span tree for one verifyPlayer call. Stages complete on different threads, so spans are
+ * collected in a concurrent queue and only assembled into a tree when the trace is written.
+ * When tracing is off the trace records nothing but the deciding provider.
+ */
+public class LoginTrace {
+
+    public static final class Span {
+        private final int id;
+        private final int parentId;
+        private final String name;
+        private final long startNanos;
+        private volatile long endNanos;
+        private volatile String outcome;
+
+        private Span(int id, int parentId, String name) {
+            this.id = id;
+            this.parentId = parentId;
+            this.name = name;
+            this.startNanos = System.nanoTime();
+        }
+
+        public void end() {
+            if (endNanos == 0L) {
+                endNanos = System.nanoTime();
+            }
+        }
+
+        public void end(String outcome) {
+            this.outcome = outcome;
+            end();
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getParentId() {
+            return parentId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        /** End time, or 0 if the span never ended (the verification timed out first). */
+        public long getEndNanos() {
+            return endNanos;
+        }
+
+        public String getOutcome() {
+            return outcome;
+        }
+    }
+
+    private final String playerName;
+    private final UUID playerUuid;
+    private final boolean recording;
+    private final boolean sampled;
+    private final long startedAt = System.currentTimeMillis();
+    private final ConcurrentLinkedQueue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Span root;
+    private volatile String provider;
+
+    LoginTrace(String playerName, UUID playerUuid, boolean recording, boolean sampled) {
+        this.playerName = playerName;
+        this.playerUuid = playerUuid;
+        this.recording = recording;
+        this.sampled = sampled;
+        this.root = recording ? new Span(nextId.getAndIncrement(), -1, "verification") : null;
+    }
+
+    /** Starts a child of {@code parent}, or of the root span when parent is null. Returns null when not recording. */
+    public Span begin(String name, Span parent) {
+        if (!recording) {
+            return null;
+        }
+        Span span = new Span(nextId.getAndIncrement(), parent != null ? parent.id : root.id, name);
+        spans.add(span);
+        return span;
+    }
+
+    public Span begin(String name) {
+        return begin(name, null);
+    }
+
+    public static void end(Span span, String outcome) {
+        if (span != null) {
+            span.end(outcome);
+        }
+    }
+
+    public <T> CompletableFuture<T> timed(String name, CompletableFuture<T> future) {
+        Span span = begin(name);
+        if (span != null) {
+            future.whenComplete((result, error) -> span.end(error != null ? "error" : null));
+        }
+        return future;
+    }
+
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    boolean isSampled() {
+        return sampled;
+    }
+
+    String getPlayerName() {
+        return playerName;
+    }
+
+    UUID getPlayerUuid() {
+        return playerUuid;
+    }
+
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    Span getRoot() {
+        return root;
+    }
+
+    List<Span> getSpans() {
+        return new ArrayList<>(spans);
+    }
+}
@@ -0,0 +1,182 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which login traces to keep and writes them to {@code traces/logins.ndjson}, one JSON
+ * object per line. A trace is kept when it was sampled up front or when the login turned out
+ * slower than the threshold. Kept traces wait in a bounded queue and are written in batches
+ * off the main thread; when the queue is full, traces are dropped rather than blocking logins.
+ */
+public class LoginTracer {
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final StrictGeoGuardian plugin;
+    private final Gson gson = new Gson();
+    private final boolean recording;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Path file;
+    private final ArrayBlockingQueue<LoginTrace> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public LoginTracer(StrictGeoGuardian plugin, ConfigManager configManager) {
+        this.plugin = plugin;
+        this.sampleRate = configManager.getTraceSampleRate();
+        this.slowThresholdNanos = configManager.getTraceSlowThresholdMs() * 1_000_000L;
+        this.recording = configManager.isTracingEnabled() && (sampleRate > 0.0 || slowThresholdNanos > 0L);
+        this.maxFileBytes = configManager.getTraceMaxFileSizeMb() * 1024L * 1024L;
+        this.maxFiles = configManager.getTraceMaxFiles();
+        this.file = new File(new File(plugin.getDataFolder(), "traces"), "logins.ndjson").toPath();
+
+        if (recording) {
+            plugin.getScheduler().runAsyncRepeating(this::flush, 20L, 20L);
+        }
+    }
+
+    public LoginTrace start(String playerName, UUID playerUuid) {
+        boolean sample = recording && sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        return new LoginTrace(playerName, playerUuid, recording, sample);
+    }
+
+    public void finish(LoginTrace trace, String outcome) {
+        if (!trace.isRecording()) {
+            return;
+        }
+        trace.getRoot().end(outcome);
+        long duration = trace.getRoot().getEndNanos() - trace.getRoot().getStartNanos();
+        boolean isSlow = slowThresholdNanos > 0L && duration >= slowThresholdNanos;
+        if (!isSlow && !trace.isSampled()) {
+            return;
+        }
+        if (isSlow) {
+            slow.increment();
+        } else {
+            sampled.increment();
+        }
+        if (!pending.offer(trace)) {
+            dropped.increment();
+        }
+    }
+
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<LoginTrace> batch = new ArrayList<>(pending.size());
+        pending.drainTo(batch);
+
+        StringBuilder lines = new StringBuilder(batch.size() * 512);
+        for (LoginTrace trace : batch) {
+            lines.append(gson.toJson(toJson(trace))).append('\n');
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Files.createDirectories(file.getParent());
+            if (Files.exists(file) && Files.size(file) + bytes.length > maxFileBytes) {
+                rotate();
+            }
+            Files.write(file, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not write login traces: " + e.getMessage());
+        }
+    }
+
+    private void rotate() throws IOException {
+        Path directory = file.getParent();
+        Files.deleteIfExists(directory.resolve("logins." + maxFiles + ".ndjson"));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = directory.resolve("logins." + i + ".ndjson");
+            if (Files.exists(source)) {
+                Files.move(source, directory.resolve("logins." + (i + 1) + ".ndjson"), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, directory.resolve("logins.1.ndjson"), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private JsonObject toJson(LoginTrace trace) {
+        LoginTrace.Span root = trace.getRoot();
+        Map<Integer, List<LoginTrace.Span>> children = new HashMap<>();
+        for (LoginTrace.Span span : trace.getSpans()) {
+            children.computeIfAbsent(span.getParentId(), key -> new ArrayList<>()).add(span);
+        }
+
+        JsonObject json = new JsonObject();
+        json.addProperty("time", Instant.ofEpochMilli(trace.getStartedAt()).toString());
+        json.addProperty("player", trace.getPlayerName());
+        json.addProperty("uuid", trace.getPlayerUuid().toString());
+        json.addProperty("reason", slowThresholdNanos > 0L && root.getEndNanos() - root.getStartNanos() >= slowThresholdNanos ? "slow" : "sampled");
+        json.addProperty("provider", trace.getProvider());
+        json.add("root", toJson(root, root.getStartNanos(), children));
+        return json;
+    }
+
+    private JsonObject toJson(LoginTrace.Span span, long originNanos, Map<Integer, List<LoginTrace.Span>> children) {
+        JsonObject json = new JsonObject();
+        json.addProperty("name", span.getName());
+        json.addProperty("startMs", millis(span.getStartNanos() - originNanos));
+        if (span.getEndNanos() != 0L) {
+            json.addProperty("durationMs", millis(span.getEndNanos() - span.getStartNanos()));
+        }
+        if (span.getOutcome() != null) {
+            json.addProperty("outcome", span.getOutcome());
+        }
+        List<LoginTrace.Span> nested = children.get(span.getId());
+        if (nested != null) {
+            nested.sort((a, b) -> Long.compare(a.getStartNanos(), b.getStartNanos()));
+            JsonArray array = new JsonArray();
+            for (LoginTrace.Span child : nested) {
+                array.add(toJson(child, originNanos, children));
+            }
+            json.add("children", array);
+        }
+        return json;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public long getSampled() {
+        return sampled.sum();
+    }
+
+    public long getSlow() {
+        return slow.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
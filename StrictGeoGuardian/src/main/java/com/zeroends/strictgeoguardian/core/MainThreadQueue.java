@@ -0,0 +1,69 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Collects callbacks from async stages and runs them on the main thread, once per tick and within
+ * a time budget. Whatever does not fit in the budget waits for the next tick, so a burst of
+ * completed logins cannot stretch a single tick.
+ */
+public class MainThreadQueue implements Executor {
+
+    private final StrictGeoGuardian plugin;
+    private final long budgetNanos;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder spilledTicks = new LongAdder();
+
+    public MainThreadQueue(StrictGeoGuardian plugin, long budgetMillis) {
+        this.plugin = plugin;
+        this.budgetNanos = Math.max(1L, budgetMillis) * 1_000_000L;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        queue.add(task);
+        pending.incrementAndGet();
+    }
+
+    void drain() {
+        long start = System.nanoTime();
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                plugin.getLogger().log(Level.SEVERE, "Main thread callback failed", t);
+            }
+            executed.increment();
+
+            if (System.nanoTime() - start >= budgetNanos) {
+                if (!queue.isEmpty()) {
+                    spilledTicks.increment();
+                }
+                return;
+            }
+        }
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getExecuted() {
+        return executed.sum();
+    }
+
+    public long getSpilledTicks() {
+        return spilledTicks.sum();
+    }
+}
@@ -0,0 +1,211 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.service.AdmissionController;
+import com.zeroends.strictgeoguardian.service.ConnectionRateLimiter;
+import com.zeroends.strictgeoguardian.service.GeoService;
+import com.zeroends.strictgeoguardian.service.LoginThrottle;
+import com.zeroends.strictgeoguardian.service.PasswordHashingService;
+import com.zeroends.strictgeoguardian.service.SessionTicketService;
+import com.zeroends.strictgeoguardian.util.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the plugin's counters in the Prometheus text format on {@code /metrics}. Scrapes only
+ * read counters and histogram buckets, on the exporter's own thread, so they never touch the
+ * login path or the server thread.
+ */
+public class MetricsExporter {
+
+    private static final String PREFIX = "strictgeoguardian_";
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            1_000L, 2_500L, 5_000L, 10_000L, 25_000L, 50_000L, 100_000L, 250_000L,
+            500_000L, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 30_000_000L
+    };
+    private static final String[] BUCKET_LABELS = {
+            "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1", "0.25",
+            "0.5", "1", "2.5", "5", "10", "30"
+    };
+
+    private final StrictGeoGuardian plugin;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsExporter(StrictGeoGuardian plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start(String host, int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Could not start metrics endpoint on " + host + ":" + port + ": " + e.getMessage());
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "StrictGeoGuardian-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        plugin.getLogger().info("Metrics endpoint listening on http://" + host + ":" + port + "/metrics");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private String render() {
+        StringBuilder out = new StringBuilder(8192);
+
+        header(out, "verifications_total", "counter", "Completed login verifications by outcome.");
+        for (Map.Entry<String, Long> entry : plugin.getMetrics().getOutcomes().entrySet()) {
+            sample(out, "verifications_total", "outcome", entry.getKey(), entry.getValue());
+        }
+
+        header(out, "stage_duration_seconds", "histogram", "Latency of each verification stage (geo providers, storage, fingerprinting, hashing).");
+        for (Map.Entry<String, LatencyHistogram> entry : plugin.getMetrics().getStages().entrySet()) {
+            histogram(out, entry.getKey(), entry.getValue());
+        }
+
+        GeoService geo = plugin.getGeoService();
+        header(out, "geo_prefetch_total", "counter", "Geo prefetch lookups by result.");
+        sample(out, "geo_prefetch_total", "result", "issued", geo.getPrefetchIssued());
+        sample(out, "geo_prefetch_total", "result", "hit", geo.getPrefetchHits());
+        sample(out, "geo_prefetch_total", "result", "miss", geo.getPrefetchMisses());
+
+        SessionTicketService tickets = plugin.getSessionTicketService();
+        header(out, "session_tickets_total", "counter", "Session ticket activity by result.");
+        sample(out, "session_tickets_total", "result", "issued", tickets.getIssued());
+        sample(out, "session_tickets_total", "result", "hit", tickets.getHits());
+        sample(out, "session_tickets_total", "result", "miss", tickets.getMisses());
+        gauge(out, "session_tickets_active", "Session tickets waiting to be redeemed.", tickets.getActiveTickets());
+
+        counter(out, "fingerprint_skipped_writes_total", "Fingerprint saves skipped because nothing changed.", plugin.getFingerprintStorage().getSkippedWrites());
+
+        PasswordHashingService hashing = plugin.getPasswordHashingService();
+        gauge(out, "hashing_queue_depth", "Password hashing jobs waiting for a thread.", hashing.getQueueDepth());
+        gauge(out, "hashing_active", "Password hashing jobs running.", hashing.getActiveCount());
+        counter(out, "hashing_rejected_total", "Password hashing jobs rejected because the queue was full.", hashing.getRejected());
+
+        header(out, "executor_pending", "gauge", "Tasks queued or running per executor stage.");
+        for (PluginExecutors.Stage stage : plugin.getExecutors().getStages()) {
+            sample(out, "executor_pending", "stage", stage.getName(), stage.getPending());
+        }
+        header(out, "executor_completed_total", "counter", "Tasks completed per executor stage.");
+        for (PluginExecutors.Stage stage : plugin.getExecutors().getStages()) {
+            sample(out, "executor_completed_total", "stage", stage.getName(), stage.getCompleted());
+        }
+        gauge(out, "main_thread_queue_pending", "Callbacks waiting for the main-thread batch.", plugin.getScheduler().getMainThreadQueue().getPending());
+
+        AdmissionController admission = plugin.getAdmissionController();
+        gauge(out, "admission_in_flight", "Logins currently being verified.", admission.getInFlight());
+        gauge(out, "admission_limit", "Current limit on logins verified at once.", admission.getLimit());
+        gauge(out, "admission_waiting", "Logins waiting for a verification slot.", admission.getWaiting());
+        header(out, "admission_total", "counter", "Admission decisions by result.");
+        sample(out, "admission_total", "result", "admitted", admission.getAdmitted());
+        sample(out, "admission_total", "result", "shed", admission.getShed());
+        sample(out, "admission_total", "result", "timed_out", admission.getTimedOut());
+
+        ConnectionRateLimiter rateLimiter = plugin.getConnectionRateLimiter();
+        header(out, "rate_limit_total", "counter", "Connection rate limit decisions.");
+        sample(out, "rate_limit_total", "result", "allowed", rateLimiter.getAllowed());
+        sample(out, "rate_limit_total", "result", "ip_limited", rateLimiter.getIpLimited());
+        sample(out, "rate_limit_total", "result", "prefix_limited", rateLimiter.getPrefixLimited());
+
+        LoginThrottle throttle = plugin.getLoginThrottle();
+        counter(out, "login_lockouts_total", "Password lockouts started.", throttle.getLockouts());
+        counter(out, "login_refused_total", "Password attempts refused during a lockout.", throttle.getRefused());
+
+        LoginTracer tracer = plugin.getTracer();
+        header(out, "login_traces_total", "counter", "Login traces kept for the trace log, by reason.");
+        sample(out, "login_traces_total", "reason", "slow", tracer.getSlow());
+        sample(out, "login_traces_total", "reason", "sampled", tracer.getSampled());
+        sample(out, "login_traces_total", "reason", "dropped", tracer.getDropped());
+
+        AuditLog auditLog = plugin.getAuditLog();
+        header(out, "audit_events_total", "counter", "Audit events by state.");
+        sample(out, "audit_events_total", "state", "recorded", auditLog.getRecorded());
+        sample(out, "audit_events_total", "state", "written", auditLog.getWritten());
+        sample(out, "audit_events_total", "state", "dropped", auditLog.getDropped());
+
+        AuthManager authManager = plugin.getAuthManager();
+        gauge(out, "limbo_players", "Players online who still have to use /pass.", authManager.getLimboPopulation());
+        gauge(out, "auth_sessions", "Players between pre-login and authentication.", authManager.getPendingSessions());
+
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, String stage, LatencyHistogram histogram) {
+        long[] cumulative = histogram.cumulativeCounts(BUCKET_BOUNDS_MICROS);
+        long count = histogram.getCount();
+        String name = PREFIX + "stage_duration_seconds";
+        for (int i = 0; i < cumulative.length; i++) {
+            out.append(name).append("_bucket{stage=\"").append(escape(stage)).append("\",le=\"").append(BUCKET_LABELS[i]).append("\"} ")
+                    .append(Math.min(cumulative[i], count)).append('\n');
+        }
+        out.append(name).append("_bucket{stage=\"").append(escape(stage)).append("\",le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_sum{stage=\"").append(escape(stage)).append("\"} ").append(histogram.getSumMillis() / 1_000.0).append('\n');
+        out.append(name).append("_count{stage=\"").append(escape(stage)).append("\"} ").append(count).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, long sample) {
+        out.append(PREFIX).append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ").append(sample).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
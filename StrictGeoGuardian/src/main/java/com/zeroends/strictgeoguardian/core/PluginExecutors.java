@@ -0,0 +1,139 @@
+package com.zeroends.strictgeoguardian.core;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * The plugin's own executors, so blocking work never runs on the shared common pool.
+ * Blocking I/O (HTTP, files) goes to virtual threads by default; CPU-bound work goes to a
+ * small platform pool. Each named stage is wrapped with counters.
+ */
+public class PluginExecutors {
+
+    public static final class Stage implements Executor {
+        private final String name;
+        private final Executor delegate;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder queueNanos = new LongAdder();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private Stage(String name, Executor delegate) {
+            this.name = name;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            long queuedAt = System.nanoTime();
+            submitted.increment();
+            pending.incrementAndGet();
+            try {
+                delegate.execute(() -> {
+                    queueNanos.add(System.nanoTime() - queuedAt);
+                    try {
+                        task.run();
+                    } finally {
+                        pending.decrementAndGet();
+                        completed.increment();
+                    }
+                });
+            } catch (RuntimeException e) {
+                pending.decrementAndGet();
+                throw e;
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getSubmitted() {
+            return submitted.sum();
+        }
+
+        public long getCompleted() {
+            return completed.sum();
+        }
+
+        public int getPending() {
+            return pending.get();
+        }
+
+        public double getAverageQueueMillis() {
+            long count = completed.sum();
+            return count == 0 ? 0.0 : queueNanos.sum() / (double) count / 1_000_000.0;
+        }
+    }
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5L;
+
+    private final Logger logger;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService cpuExecutor;
+    private final boolean virtualIo;
+    private final ConcurrentHashMap<String, Stage> stages = new ConcurrentHashMap<>();
+
+    public PluginExecutors(ConfigManager configManager, Logger logger) {
+        this.logger = logger;
+        this.virtualIo = configManager.getIoExecutorType().equals("virtual");
+        this.ioExecutor = virtualIo
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("StrictGeoGuardian-IO-", 0).factory())
+                : Executors.newFixedThreadPool(configManager.getIoThreads(), daemonFactory("StrictGeoGuardian-IO-"));
+        this.cpuExecutor = Executors.newFixedThreadPool(configManager.getCpuThreads(), daemonFactory("StrictGeoGuardian-CPU-"));
+    }
+
+    private static ThreadFactory daemonFactory(String prefix) {
+        return Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+
+    public Stage io(String stage) {
+        return stages.computeIfAbsent(stage, name -> new Stage(name, ioExecutor));
+    }
+
+    public Stage cpu(String stage) {
+        return stages.computeIfAbsent(stage, name -> new Stage(name, cpuExecutor));
+    }
+
+    public Collection<Stage> getStages() {
+        return stages.values();
+    }
+
+    public boolean isVirtualIo() {
+        return virtualIo;
+    }
+
+    /** Stops accepting work and gives queued tasks, mostly storage writes, a bounded time to finish. */
+    public void shutdown() {
+        ioExecutor.shutdown();
+        cpuExecutor.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        try {
+            ioExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            cpuExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (ioExecutor.isTerminated() && cpuExecutor.isTerminated()) {
+            return;
+        }
+
+        StringBuilder pending = new StringBuilder();
+        for (Stage stage : stages.values()) {
+            if (stage.getPending() > 0) {
+                pending.append(pending.length() == 0 ? "" : ", ").append(stage.getName()).append('=').append(stage.getPending());
+            }
+        }
+        int dropped = ioExecutor.shutdownNow().size() + cpuExecutor.shutdownNow().size();
+        logger.warning("Executors did not finish within " + SHUTDOWN_TIMEOUT_SECONDS + " seconds; " + dropped
+                + " queued tasks were dropped. Still pending: " + (pending.length() == 0 ? "none" : pending) + ".");
+    }
+}
@@ -0,0 +1,48 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per verification stage and counters per verification outcome.
+ */
+public class PluginMetrics {
+
+    private final ConcurrentHashMap<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    public LatencyHistogram stage(String name) {
+        return stages.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public void record(String stage, long startNanos) {
+        stage(stage).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    /** Records how long {@code future} takes from now until it completes, successfully or not. */
+    public <T> CompletableFuture<T> timed(String stage, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        LatencyHistogram histogram = stage(stage);
+        future.whenComplete((result, error) -> histogram.recordNanos(System.nanoTime() - start));
+        return future;
+    }
+
+    public void outcome(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    public Map<String, LatencyHistogram> getStages() {
+        return new TreeMap<>(stages);
+    }
+
+    public Map<String, Long> getOutcomes() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        outcomes.forEach((key, adder) -> snapshot.put(key, adder.sum()));
+        return snapshot;
+    }
+}
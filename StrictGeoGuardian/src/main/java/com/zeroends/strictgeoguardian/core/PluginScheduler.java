@@ -0,0 +1,89 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single entry point for scheduling. On Paper/Purpur everything lands on the main thread via
+ * {@link MainThreadQueue}; on Folia player work goes to the player's entity scheduler and
+ * everything else to the global region or async scheduler.
+ */
+public class PluginScheduler {
+
+    private final StrictGeoGuardian plugin;
+    private final boolean folia;
+    private final MainThreadQueue mainThreadQueue;
+
+    public PluginScheduler(StrictGeoGuardian plugin, long mainThreadBudgetMillis) {
+        this.plugin = plugin;
+        this.folia = detectFolia();
+        this.mainThreadQueue = new MainThreadQueue(plugin, mainThreadBudgetMillis);
+        runRepeating(mainThreadQueue::drain, 1L, 1L);
+    }
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public boolean isFolia() {
+        return folia;
+    }
+
+    /** Runs on the thread that owns the player. Tasks for players that have left are dropped. */
+    public Executor forPlayer(Player player) {
+        if (!folia) {
+            return mainThreadQueue;
+        }
+        return task -> player.getScheduler().run(plugin, scheduled -> task.run(), null);
+    }
+
+    public Executor forSender(CommandSender sender) {
+        return sender instanceof Player player ? forPlayer(player) : global();
+    }
+
+    public Executor global() {
+        if (!folia) {
+            return mainThreadQueue;
+        }
+        return task -> plugin.getServer().getGlobalRegionScheduler().execute(plugin, task);
+    }
+
+    public void runRepeating(Runnable task, long delayTicks, long periodTicks) {
+        if (folia) {
+            plugin.getServer().getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> task.run(), delayTicks, periodTicks);
+        } else {
+            plugin.getServer().getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        }
+    }
+
+    public void runAsyncRepeating(Runnable task, long delayTicks, long periodTicks) {
+        if (folia) {
+            plugin.getServer().getAsyncScheduler().runAtFixedRate(plugin, scheduled -> task.run(),
+                    delayTicks * 50L, periodTicks * 50L, TimeUnit.MILLISECONDS);
+        } else {
+            plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, task, delayTicks, periodTicks);
+        }
+    }
+
+    public void cancelAll() {
+        if (folia) {
+            plugin.getServer().getGlobalRegionScheduler().cancelTasks(plugin);
+            plugin.getServer().getAsyncScheduler().cancelTasks(plugin);
+        } else {
+            plugin.getServer().getScheduler().cancelTasks(plugin);
+        }
+    }
+
+    public MainThreadQueue getMainThreadQueue() {
+        return mainThreadQueue;
+    }
+}
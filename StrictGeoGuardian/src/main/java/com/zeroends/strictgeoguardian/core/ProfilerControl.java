@@ -0,0 +1,83 @@
+package com.zeroends.strictgeoguardian.core;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts and stops a single Flight Recorder recording for {@code /identity profile}. The
+ * recording uses the JDK "profile" settings plus the plugin's own events, stops by itself
+ * after {@link #MAX_DURATION}, and is written to {@code profiles/} in the data folder.
+ */
+public class ProfilerControl {
+
+    private static final Duration MAX_DURATION = Duration.ofMinutes(15);
+    private static final long MAX_SIZE_BYTES = 256L * 1024 * 1024;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final StrictGeoGuardian plugin;
+    private Recording recording;
+
+    public ProfilerControl(StrictGeoGuardian plugin) {
+        this.plugin = plugin;
+    }
+
+    /** Returns the file the recording will be written to. */
+    public synchronized Path start() throws IOException, ParseException {
+        if (isRunning()) {
+            throw new IllegalStateException("A recording is already running.");
+        }
+        if (recording != null) {
+            // Stopped on its own after MAX_DURATION; release it before replacing it.
+            recording.close();
+            recording = null;
+        }
+        File folder = new File(plugin.getDataFolder(), "profiles");
+        folder.mkdirs();
+        Path destination = new File(folder, "profile-" + LocalDateTime.now().format(FILE_TIME) + ".jfr").toPath();
+
+        Recording next = new Recording(Configuration.getConfiguration("profile"));
+        next.setName("StrictGeoGuardian");
+        for (Class<? extends Event> event : FlightRecorderEvents.all()) {
+            next.enable(event).withThreshold(Duration.ZERO);
+        }
+        next.setToDisk(true);
+        next.setMaxSize(MAX_SIZE_BYTES);
+        next.setDuration(MAX_DURATION);
+        next.setDestination(destination);
+        next.start();
+        recording = next;
+        return destination;
+    }
+
+    /** Stops the recording and returns the file it was written to, or null if none was running. */
+    public synchronized Path stop() {
+        if (recording == null) {
+            return null;
+        }
+        Recording current = recording;
+        recording = null;
+        Path destination = current.getDestination();
+        try {
+            current.stop();
+        } catch (IllegalStateException ignored) {
+            // Already stopped on its own after MAX_DURATION; the file has been written.
+        }
+        current.close();
+        return destination;
+    }
+
+    public synchronized boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+}
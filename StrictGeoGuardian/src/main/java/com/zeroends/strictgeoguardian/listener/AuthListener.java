@@ -10,10 +10,7 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
-import org.bukkit.event.player.PlayerDropItemEvent;
-import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
-import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
 public class AuthListener implements Listener {
@@ -36,13 +33,6 @@ public class AuthListener implements Listener {
         authManager.handlePlayerQuit(event.getPlayer());
     }
 
-    @EventHandler(priority = EventPriority.HIGHEST)
-    public void onPlayerMove(PlayerMoveEvent event) {
-        if (authManager.isPlayerInLimbo(event.getPlayer().getUniqueId())) {
-            event.setCancelled(true);
-            event.getPlayer().sendActionBar(Component.text("Harap selesaikan verifikasi.").color(NamedTextColor.YELLOW));
-        }
-    }
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerChat(AsyncChatEvent event) {
@@ -78,18 +68,4 @@ public class AuthListener implements Listener {
             }
         }
     }
-
-    @EventHandler(priority = EventPriority.HIGHEST)
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        if (authManager.isPlayerInLimbo(event.getPlayer().getUniqueId())) {
-            event.setCancelled(true);
-        }
-    }
-
-    @EventHandler(priority = EventPriority.HIGHEST)
-    public void onPlayerDropItem(PlayerDropItemEvent event) {
-        if (authManager.isPlayerInLimbo(event.getPlayer().getUniqueId())) {
-            event.setCancelled(true);
-        }
-    }
 }
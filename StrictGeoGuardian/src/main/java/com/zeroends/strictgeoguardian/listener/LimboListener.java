@@ -0,0 +1,118 @@
+package com.zeroends.strictgeoguardian.listener;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.util.UuidSet;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Freezes players who are online but not yet authenticated. The move handler is only registered
+ * while at least one such player is online, so the server pays nothing for it otherwise; the
+ * cheap interact and drop checks live in {@link #guard()}, which stays registered.
+ */
+public class LimboListener implements Listener {
+
+    private static final Component MOVE_MESSAGE = Component.text("Harap selesaikan verifikasi.").color(NamedTextColor.YELLOW);
+    private static final long MESSAGE_INTERVAL_MILLIS = 1000L;
+
+    private final StrictGeoGuardian plugin;
+    private final UuidSet limboPlayers = new UuidSet();
+    private final ConcurrentHashMap<UUID, Long> lastMessageAt = new ConcurrentHashMap<>();
+    private final Listener guard = new Guard();
+    private boolean registered;
+
+    public LimboListener(StrictGeoGuardian plugin) {
+        this.plugin = plugin;
+    }
+
+    public void enter(UUID uuid) {
+        limboPlayers.add(uuid);
+        updateRegistration();
+    }
+
+    public void leave(UUID uuid) {
+        if (limboPlayers.remove(uuid)) {
+            lastMessageAt.remove(uuid);
+            updateRegistration();
+        }
+    }
+
+    /** Always-registered handlers that only need a membership check. */
+    public Listener guard() {
+        return guard;
+    }
+
+    public boolean contains(UUID uuid) {
+        return limboPlayers.contains(uuid);
+    }
+
+    private void updateRegistration() {
+        // On Folia there is no single thread to toggle registration from; the listener stays registered.
+        if (plugin.getScheduler().isFolia()) {
+            return;
+        }
+        if (!Bukkit.isPrimaryThread()) {
+            plugin.getScheduler().global().execute(this::updateRegistration);
+            return;
+        }
+        boolean needed = !limboPlayers.isEmpty();
+        if (needed && !registered) {
+            plugin.getServer().getPluginManager().registerEvents(this, plugin);
+            registered = true;
+        } else if (!needed && registered) {
+            HandlerList.unregisterAll(this);
+            registered = false;
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGHEST, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ()) {
+            return;
+        }
+        Player player = event.getPlayer();
+        if (!limboPlayers.contains(player.getUniqueId())) {
+            return;
+        }
+        event.setCancelled(true);
+
+        long now = System.currentTimeMillis();
+        Long last = lastMessageAt.get(player.getUniqueId());
+        if (last == null || now - last >= MESSAGE_INTERVAL_MILLIS) {
+            lastMessageAt.put(player.getUniqueId(), now);
+            player.sendActionBar(MOVE_MESSAGE);
+        }
+    }
+
+    private final class Guard implements Listener {
+
+        @EventHandler(priority = EventPriority.HIGHEST)
+        public void onPlayerInteract(PlayerInteractEvent event) {
+            if (limboPlayers.contains(event.getPlayer().getUniqueId())) {
+                event.setCancelled(true);
+            }
+        }
+
+        @EventHandler(priority = EventPriority.HIGHEST)
+        public void onPlayerDropItem(PlayerDropItemEvent event) {
+            if (limboPlayers.contains(event.getPlayer().getUniqueId())) {
+                event.setCancelled(true);
+            }
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.zeroends.strictgeoguardian.listener;
 
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.AuditLog;
 import com.zeroends.strictgeoguardian.core.AuthManager;
-import com.zeroends.strictgeoguardian.model.AuthStatus;
 import com.zeroends.strictgeoguardian.model.VerificationResult;
+import com.zeroends.strictgeoguardian.service.AdmissionController;
+import com.zeroends.strictgeoguardian.service.ConnectionRateLimiter;
 import com.zeroends.strictgeoguardian.service.VerificationService;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -19,11 +21,16 @@ public class PlayerLoginListener implements Listener {
     private final StrictGeoGuardian plugin;
     private final VerificationService verificationService;
     private final AuthManager authManager;
+    private final AdmissionController admissionController;
+    private final ConnectionRateLimiter rateLimiter;
 
-    public PlayerLoginListener(StrictGeoGuardian plugin, VerificationService verificationService, AuthManager authManager) {
+    public PlayerLoginListener(StrictGeoGuardian plugin, VerificationService verificationService, AuthManager authManager,
+                               AdmissionController admissionController, ConnectionRateLimiter rateLimiter) {
         this.plugin = plugin;
         this.verificationService = verificationService;
         this.authManager = authManager;
+        this.admissionController = admissionController;
+        this.rateLimiter = rateLimiter;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
@@ -38,25 +45,53 @@ public class PlayerLoginListener implements Listener {
             return;
         }
 
-        plugin.getLogger().info("Processing login for " + playerName + " [" + ipAddress + "]");
+        if (rateLimiter.check(event.getAddress()) != ConnectionRateLimiter.Decision.ALLOWED) {
+            plugin.getMetrics().outcome("rateLimited");
+            plugin.getAuditLog().record(AuditLog.Type.RATE_LIMITED, playerUuid, playerName, ipAddress, null);
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    Component.text("Too many connection attempts from your network. Please wait a minute and try again.").color(NamedTextColor.RED));
+            return;
+        }
+
+        AdmissionController.Outcome admission;
+        try {
+            admission = admissionController.acquire(isKnownPlayer(playerName, playerUuid));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admission = AdmissionController.Outcome.TIMED_OUT;
+        }
+        if (admission != AdmissionController.Outcome.ADMITTED) {
+            plugin.getMetrics().outcome("serverBusy");
+            plugin.getAuditLog().record(AuditLog.Type.SERVER_BUSY, playerUuid, playerName, ipAddress, admission.name());
+            event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER,
+                    Component.text("The server is busy handling a lot of connections. Please try again in a few seconds.").color(NamedTextColor.YELLOW));
+            return;
+        }
 
-        VerificationResult result = verificationService.verifyPlayer(playerName, playerUuid, ipAddress);
+        VerificationResult result;
+        try {
+            result = verificationService.verifyPlayer(playerName, playerUuid, ipAddress).join();
+        } finally {
+            admissionController.release();
+        }
 
         if (!result.isAllowed()) {
             event.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, result.getKickMessage());
-            plugin.getLogger().warning("DENIED login for " + playerName + ". Reason: " + result.getLogMessage());
+            plugin.getAuditLog().record(AuditLog.Type.LOGIN_DENIED, playerUuid, playerName, ipAddress, result.getOutcome(), result.getScore(), result.getDetail());
         } else {
-            if (result.getAuthStatus() != AuthStatus.AUTHENTICATED) {
-                authManager.setPlayerStatus(playerUuid, result.getAuthStatus());
-            }
-            
-            if (result.isLoggable()) {
-                plugin.getLogger().info("ALLOWED login for " + playerName + ". Status: " + result.getLogMessage());
-            } else {
-                plugin.getLogger().info("ALLOWED login for " + playerName + ". Status: High confidence match.");
-            }
-            
+            authManager.setPlayerStatus(playerUuid, result.getAuthStatus());
+            plugin.getAuditLog().record(AuditLog.Type.LOGIN_ALLOWED, playerUuid, playerName, ipAddress, result.getOutcome(), result.getScore(), result.getDetail());
             event.allow();
         }
     }
+
+    /** Never waits on storage: admission exists to run before any work is done for a connection. */
+    private boolean isKnownPlayer(String playerName, UUID playerUuid) {
+        if (plugin.getConfigManager().isPlayerWhitelisted(playerName)) {
+            return true;
+        }
+        // While storage is still loading, registered players must not lose their priority.
+        Boolean registered = plugin.getAuthStorage().peekRegistered(playerUuid);
+        return registered == null || registered;
+    }
 }
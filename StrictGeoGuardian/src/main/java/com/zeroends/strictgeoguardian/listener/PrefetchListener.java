@@ -0,0 +1,36 @@
+package com.zeroends.strictgeoguardian.listener;
+
+import com.destroystokyo.paper.event.player.PlayerHandshakeEvent;
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.service.GeoService;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.ServerListPingEvent;
+
+public class PrefetchListener implements Listener {
+
+    private final StrictGeoGuardian plugin;
+    private final GeoService geoService;
+
+    public PrefetchListener(StrictGeoGuardian plugin, GeoService geoService) {
+        this.plugin = plugin;
+        this.geoService = geoService;
+    }
+
+    // PlayerHandshakeEvent is cancelled by default, which tells Paper to run its normal
+    // handshake logic. We only read the address and never touch the event's state.
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onHandshake(PlayerHandshakeEvent event) {
+        if (plugin.getConfigManager().isPrefetchOnHandshake()) {
+            geoService.prefetch(event.getOriginalSocketAddressHostname());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerListPing(ServerListPingEvent event) {
+        if (plugin.getConfigManager().isPrefetchOnStatusPing() && event.getAddress() != null) {
+            geoService.prefetch(event.getAddress().getHostAddress());
+        }
+    }
+}
@@ -36,6 +36,20 @@ public record Fingerprint(
     String isp,
     String domain
 ) {
+    public Fingerprint withCreatedAt(Instant createdAt) {
+        return new Fingerprint(
+            id, playerName, createdAt, javaUuid, edition, profilePropertyDigest,
+            ipVersion, hashedPrefix, hashedPseudoAsn, hashedPtr, tcpTtl, tcpMss,
+            clientBrand, modListHash, resourcePackHash, viewportSettings, locale, skinParts,
+            countryCode, continentCode, region, city, latitude, longitude, timezone,
+            postal, calling_code, asn, org, isp, domain
+        );
+    }
+
+    public boolean contentEquals(Fingerprint other) {
+        return other != null && withCreatedAt(null).equals(other.withCreatedAt(null));
+    }
+
     public static class Builder {
         private long id = -1;
         private String playerName;
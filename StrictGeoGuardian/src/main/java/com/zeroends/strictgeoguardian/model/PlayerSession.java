@@ -0,0 +1,76 @@
+package com.zeroends.strictgeoguardian.model;
+
+import com.zeroends.strictgeoguardian.util.TimingWheel;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Transient authentication state for one player between pre-login and a successful /pass.
+ */
+public class PlayerSession {
+
+    private final UUID uuid;
+    private final AtomicReference<AuthStatus> status = new AtomicReference<>(AuthStatus.PENDING_VERIFICATION);
+    private final AtomicReference<GeoData> pendingGeoData = new AtomicReference<>();
+    private volatile boolean joined;
+    private volatile TimingWheel.Timeout expiry;
+    private volatile TimingWheel.Timeout reminder;
+
+    public PlayerSession(UUID uuid) {
+        this.uuid = uuid;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public AuthStatus getStatus() {
+        return status.get();
+    }
+
+    public void setStatus(AuthStatus newStatus) {
+        status.set(newStatus);
+    }
+
+    public boolean transition(AuthStatus expected, AuthStatus next) {
+        return status.compareAndSet(expected, next);
+    }
+
+    public void setPendingGeoData(GeoData geoData) {
+        pendingGeoData.set(geoData);
+    }
+
+    public GeoData takePendingGeoData() {
+        return pendingGeoData.getAndSet(null);
+    }
+
+    public boolean isJoined() {
+        return joined;
+    }
+
+    public void markJoined() {
+        joined = true;
+        cancel(expiry);
+    }
+
+    /** Before the join this drops the unused session; after it, it is the limbo timeout. */
+    public void setExpiry(TimingWheel.Timeout expiry) {
+        this.expiry = expiry;
+    }
+
+    public void setReminder(TimingWheel.Timeout reminder) {
+        this.reminder = reminder;
+    }
+
+    public void cancelTimers() {
+        cancel(expiry);
+        cancel(reminder);
+    }
+
+    private static void cancel(TimingWheel.Timeout timeout) {
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+}
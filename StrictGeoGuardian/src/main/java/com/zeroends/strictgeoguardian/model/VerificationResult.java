@@ -5,61 +5,72 @@ import net.kyori.adventure.text.format.NamedTextColor;
 
 public class VerificationResult {
 
+    private static final Component INTERNAL_ERROR_KICK = Component.text("An internal error occurred during verification. Please try again later.").color(NamedTextColor.RED);
+
+    private final String outcome;
     private final AuthStatus authStatus;
-    private final boolean loggable;
     private final Component kickMessage;
-    private final String logMessage;
+    private final double score;
+    private final String detail;
 
-    private VerificationResult(AuthStatus authStatus, boolean loggable, Component kickMessage, String logMessage) {
+    private VerificationResult(String outcome, AuthStatus authStatus, Component kickMessage, double score, String detail) {
+        this.outcome = outcome;
         this.authStatus = authStatus;
-        this.loggable = loggable;
         this.kickMessage = kickMessage;
-        this.logMessage = logMessage;
+        this.score = score;
+        this.detail = detail;
     }
 
     public boolean isAllowed() {
         return authStatus != AuthStatus.PENDING_VERIFICATION;
     }
 
-    public AuthStatus getAuthStatus() {
-        return authStatus;
+    public String getOutcome() {
+        return outcome;
     }
 
-    public boolean isLoggable() {
-        return loggable;
+    public AuthStatus getAuthStatus() {
+        return authStatus;
     }
 
     public Component getKickMessage() {
         return kickMessage;
     }
 
-    public String getLogMessage() {
-        return logMessage;
+    /** Similarity score, or NaN when the decision was not based on one. */
+    public double getScore() {
+        return score;
+    }
+
+    public String getDetail() {
+        return detail;
     }
 
     public static VerificationResult autoAllow(double score) {
-        String msg = String.format("AUTO_ALLOW (Score: %.2f%%)", score);
-        return new VerificationResult(AuthStatus.AUTHENTICATED, false, null, msg);
+        return new VerificationResult("autoAllow", AuthStatus.AUTHENTICATED, null, score, null);
     }
 
     public static VerificationResult allowMonitor(double score) {
-        String msg = String.format("ALLOW_MONITOR (Score: %.2f%%)", score);
-        return new VerificationResult(AuthStatus.AUTHENTICATED, true, null, msg);
+        return new VerificationResult("allowMonitor", AuthStatus.AUTHENTICATED, null, score, null);
+    }
+
+    public static VerificationResult sessionResumed() {
+        return new VerificationResult("sessionResumed", AuthStatus.AUTHENTICATED, null, Double.NaN, "Reconnected within grace window");
     }
 
     public static VerificationResult needsRegistration() {
-        String msg = "NEEDS_REGISTRATION (First login)";
-        return new VerificationResult(AuthStatus.NEEDS_REGISTRATION, true, null, msg);
+        return new VerificationResult("needsRegistration", AuthStatus.NEEDS_REGISTRATION, null, Double.NaN, "First login");
     }
 
     public static VerificationResult needsLogin(String reason) {
-        String msg = "NEEDS_LOGIN (" + reason + ")";
-        return new VerificationResult(AuthStatus.NEEDS_LOGIN, true, null, msg);
+        return new VerificationResult("needsLogin", AuthStatus.NEEDS_LOGIN, null, Double.NaN, reason);
+    }
+
+    public static VerificationResult needsLogin(String reason, double score) {
+        return new VerificationResult("needsLogin", AuthStatus.NEEDS_LOGIN, null, score, reason);
     }
 
     public static VerificationResult autoBlockError(String error) {
-        String msg = "AUTO_BLOCK (Internal Error: " + error + ")";
-        Component kick = Component.text("An internal error occurred during verification. Please try again later.").color(NamedTextColor.RED);
-        return new VerificationResult(AuthStatus.PENDING_VERIFICATION, true, kick, msg);
+        return new VerificationResult("autoBlockError", AuthStatus.PENDING_VERIFICATION, INTERNAL_ERROR_KICK, Double.NaN, "Internal Error: " + error);
     }
 }
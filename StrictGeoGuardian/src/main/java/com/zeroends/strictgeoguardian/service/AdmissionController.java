@@ -0,0 +1,125 @@
+package com.zeroends.strictgeoguardian.service;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.ConfigManager;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits how many logins are verified at the same time. Known players (registered or
+ * whitelisted) may use every slot and are always served before unknown ones; unknown players
+ * are kept out of the reserved slots. When a class's waiting queue is full, or a login waits
+ * too long, it is refused straight away instead of adding more load.
+ */
+public class AdmissionController {
+
+    public enum Outcome { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    private final int baseLimit;
+    private final int reservedForKnown;
+    private final int maxWaiting;
+    private final long maxWaitMillis;
+
+    private int limit;
+    private int inFlight;
+    private int waitingKnown;
+    private int waitingUnknown;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public AdmissionController(StrictGeoGuardian plugin, ConfigManager configManager) {
+        this.baseLimit = configManager.getAdmissionMaxInFlight();
+        this.reservedForKnown = Math.min(configManager.getAdmissionReservedForKnown(), baseLimit - 1);
+        this.maxWaiting = configManager.getAdmissionQueueSize();
+        this.maxWaitMillis = configManager.getAdmissionMaxWaitMs();
+        this.limit = baseLimit;
+
+        if (configManager.isAdmissionAdaptToTps()) {
+            plugin.getScheduler().runRepeating(this::adaptToTps, 100L, 100L);
+        }
+    }
+
+    public Outcome acquire(boolean known) throws InterruptedException {
+        synchronized (this) {
+            if (canRun(known)) {
+                inFlight++;
+                admitted.increment();
+                return Outcome.ADMITTED;
+            }
+            if ((known ? waitingKnown : waitingUnknown) >= maxWaiting) {
+                shed.increment();
+                return Outcome.QUEUE_FULL;
+            }
+
+            if (known) waitingKnown++; else waitingUnknown++;
+            try {
+                long deadline = System.nanoTime() + maxWaitMillis * 1_000_000L;
+                while (!canRun(known)) {
+                    long remainingMillis = (deadline - System.nanoTime()) / 1_000_000L;
+                    if (remainingMillis <= 0) {
+                        timedOut.increment();
+                        return Outcome.TIMED_OUT;
+                    }
+                    wait(remainingMillis);
+                }
+            } finally {
+                if (known) waitingKnown--; else waitingUnknown--;
+            }
+            inFlight++;
+            admitted.increment();
+            return Outcome.ADMITTED;
+        }
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    private boolean canRun(boolean known) {
+        if (known) {
+            return inFlight < limit;
+        }
+        return waitingKnown == 0 && inFlight < limit - Math.min(reservedForKnown, limit - 1);
+    }
+
+    // Full limit at 19+ TPS, scaling down to a quarter of it as the server falls towards 10 TPS.
+    private void adaptToTps() {
+        double tps = Bukkit.getTPS()[0];
+        double factor = Math.max(0.25, Math.min(1.0, (tps - 10.0) / 9.0));
+        int newLimit = Math.max(1, (int) Math.round(baseLimit * factor));
+        synchronized (this) {
+            if (newLimit != limit) {
+                limit = newLimit;
+                notifyAll();
+            }
+        }
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getLimit() {
+        return limit;
+    }
+
+    public synchronized int getWaiting() {
+        return waitingKnown + waitingUnknown;
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getShed() {
+        return shed.sum();
+    }
+
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+}
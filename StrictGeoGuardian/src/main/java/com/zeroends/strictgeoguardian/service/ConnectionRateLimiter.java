@@ -0,0 +1,73 @@
+package com.zeroends.strictgeoguardian.service;
+
+import com.zeroends.strictgeoguardian.core.ConfigManager;
+import com.zeroends.strictgeoguardian.util.HashUtils;
+import com.zeroends.strictgeoguardian.util.SlidingWindowCounter;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caps connection attempts per IP and per subnet (/24 for IPv4, /64 for IPv6) over a sliding
+ * window. Refused attempts still count, so a source that keeps hammering stays blocked.
+ */
+public class ConnectionRateLimiter {
+
+    public enum Decision { ALLOWED, IP_LIMITED, PREFIX_LIMITED }
+
+    private final boolean enabled;
+    private final int maxPerIp;
+    private final int maxPerPrefix;
+    private final SlidingWindowCounter ipCounter;
+    private final SlidingWindowCounter prefixCounter;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder ipLimited = new LongAdder();
+    private final LongAdder prefixLimited = new LongAdder();
+
+    public ConnectionRateLimiter(ConfigManager configManager) {
+        this.enabled = configManager.isRateLimitEnabled();
+        this.maxPerIp = configManager.getRateLimitPerIp();
+        this.maxPerPrefix = configManager.getRateLimitPerPrefix();
+        long windowMillis = configManager.getRateLimitWindowSeconds() * 1000L;
+        this.ipCounter = new SlidingWindowCounter(windowMillis);
+        this.prefixCounter = new SlidingWindowCounter(windowMillis);
+    }
+
+    public Decision check(InetAddress address) {
+        if (!enabled || address.isLoopbackAddress() || address.isSiteLocalAddress()) {
+            return Decision.ALLOWED;
+        }
+
+        int ipCount = ipCounter.increment(address.getHostAddress());
+        int prefixCount = prefixCounter.increment(
+                HashUtils.getSubnetPrefix(address, address.getAddress().length == 4 ? 24 : 64));
+
+        if (ipCount > maxPerIp) {
+            ipLimited.increment();
+            return Decision.IP_LIMITED;
+        }
+        if (prefixCount > maxPerPrefix) {
+            prefixLimited.increment();
+            return Decision.PREFIX_LIMITED;
+        }
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getIpLimited() {
+        return ipLimited.sum();
+    }
+
+    public long getPrefixLimited() {
+        return prefixLimited.sum();
+    }
+
+    public int getTrackedSources() {
+        return ipCounter.size() + prefixCounter.size();
+    }
+}
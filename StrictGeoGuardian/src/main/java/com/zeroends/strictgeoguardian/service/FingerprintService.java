@@ -1,6 +1,7 @@
 package com.zeroends.strictgeoguardian.service;
 
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.FlightRecorderEvents;
 import com.zeroends.strictgeoguardian.model.Fingerprint;
 import com.zeroends.strictgeoguardian.model.GeoData;
 import com.zeroends.strictgeoguardian.util.GeoUtils;
@@ -10,17 +11,20 @@ import java.net.InetAddress;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public class FingerprintService {
 
     private final StrictGeoGuardian plugin;
+    private final Executor executor;
 
     public FingerprintService(StrictGeoGuardian plugin) {
         this.plugin = plugin;
+        this.executor = plugin.getExecutors().cpu("fingerprint");
     }
 
     public CompletableFuture<Fingerprint> createFingerprint(String playerName, UUID playerUuid, String ipAddress, GeoData geoData) {
-        return CompletableFuture.supplyAsync(() -> {
+        return plugin.getMetrics().timed("fingerprint.create", CompletableFuture.supplyAsync(() -> {
             Fingerprint.Builder builder = new Fingerprint.Builder(playerName, playerUuid);
             
             builder.geoData(geoData);
@@ -39,10 +43,13 @@ public class FingerprintService {
             builder.hashedPtr(HashUtils.hmacSha256(plugin.getConfigManager().getHmacKey(), geoData.getDomain()));
 
             return builder.build();
-        });
+        }, executor));
     }
 
     public double calculateSimilarity(Fingerprint current, Fingerprint stored) {
+        long start = System.nanoTime();
+        FlightRecorderEvents.FingerprintScore event = new FlightRecorderEvents.FingerprintScore();
+        event.begin();
         double score = 0.0;
         
         score += identitySimilarity(current, stored) * 0.30;
@@ -50,7 +57,15 @@ public class FingerprintService {
         score += clientSimilarity(current, stored) * 0.30;
         score += geographicalSimilarity(current, stored) * 0.15;
         
-        return Math.min(100.0, score * 100.0);
+        plugin.getMetrics().record("fingerprint.score", start);
+        double result = Math.min(100.0, score * 100.0);
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = FlightRecorderEvents.hash(current.javaUuid());
+            event.score = result;
+            event.commit();
+        }
+        return result;
     }
     
     private double identitySimilarity(Fingerprint current, Fingerprint stored) {
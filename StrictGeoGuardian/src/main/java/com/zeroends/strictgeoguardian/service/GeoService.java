@@ -3,6 +3,7 @@ package com.zeroends.strictgeoguardian.service;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.FlightRecorderEvents;
 import com.zeroends.strictgeoguardian.model.FindIpData;
 import com.zeroends.strictgeoguardian.model.GeoData;
 import com.zeroends.strictgeoguardian.model.IpApiData;
@@ -12,6 +13,9 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,12 +26,25 @@ public class GeoService {
     private final Gson gson = new Gson();
     private final Pattern asnPattern = Pattern.compile("^AS(\\d+).*");
 
+    private record Prefetch(CompletableFuture<GeoData> future, long expiresAt) {}
+
+    private final ConcurrentHashMap<String, Prefetch> prefetched = new ConcurrentHashMap<>();
+    private final LongAdder prefetchIssued = new LongAdder();
+    private final LongAdder prefetchHits = new LongAdder();
+    private final LongAdder prefetchMisses = new LongAdder();
+    private final long prefetchTtlMillis;
+    private final Executor executor;
+    private final int prefetchMaxEntries;
+
     public GeoService(StrictGeoGuardian plugin, String api1Url, String api1Token, String api2Url, String api3Url) {
         this.plugin = plugin;
         this.api1Url = api1Url;
         this.api1Token = api1Token;
         this.api2Url = api2Url;
         this.api3Url = api3Url;
+        this.prefetchTtlMillis = plugin.getConfigManager().getPrefetchTtlSeconds() * 1000L;
+        this.prefetchMaxEntries = plugin.getConfigManager().getPrefetchMaxEntries();
+        this.executor = plugin.getExecutors().io("geo");
     }
 
     private boolean isLocal(String ip) {
@@ -41,28 +58,40 @@ public class GeoService {
                 .build();
     }
 
+    /**
+     * Uses a prefetched API 3 result when the handshake already started one, the same provider
+     * returning players are checked against first; otherwise API 1, then API 2, then API 3.
+     */
     public CompletableFuture<GeoData> fetchRegistrationData(String ipAddress) {
         if (isLocal(ipAddress)) return CompletableFuture.completedFuture(createLocalHostData());
 
-        return CompletableFuture.supplyAsync(() -> {
-            GeoData data = fetchApi1(ipAddress).join();
-            if (data != null) return data;
-            
+        CompletableFuture<GeoData> prefetch = takePrefetched(ipAddress);
+        if (prefetch != null) {
+            return prefetch.thenCompose(data -> data != null ? CompletableFuture.completedFuture(data) : fetchRegistrationChain(ipAddress));
+        }
+        return fetchRegistrationChain(ipAddress);
+    }
+
+    private CompletableFuture<GeoData> fetchRegistrationChain(String ipAddress) {
+        return fetchApi1(ipAddress).thenCompose(data -> {
+            if (data != null) return CompletableFuture.completedFuture(data);
+
             plugin.getLogger().warning("Registration: API 1 failed. Trying API 2...");
-            data = fetchApi2(ipAddress).join();
-            if (data != null) return data;
+            return fetchApi2(ipAddress);
+        }).thenCompose(data -> {
+            if (data != null) return CompletableFuture.completedFuture(data);
 
             plugin.getLogger().warning("Registration: API 2 failed. Trying API 3...");
-            return fetchApi3(ipAddress).join();
+            return fetchApi3(ipAddress);
         });
     }
     
     public CompletableFuture<GeoData> fetchApi1(String ipAddress) {
         if (isLocal(ipAddress)) return CompletableFuture.completedFuture(createLocalHostData());
-        return CompletableFuture.supplyAsync(() -> {
+        return plugin.getMetrics().timed("geo.api1", CompletableFuture.supplyAsync(() -> {
             try {
                 String url = String.format(api1Url, ipAddress) + "?token=" + api1Token;
-                FindIpData data = httpGet(url, null, FindIpData.class);
+                FindIpData data = httpGet("api1", ipAddress, url, null, FindIpData.class);
                 if (data != null && data.isSuccess()) {
                     return normalize(data, ipAddress);
                 }
@@ -72,14 +101,14 @@ public class GeoService {
                 plugin.getLogger().severe("Error fetching from API 1: " + e.getMessage());
                 return null;
             }
-        });
+        }, executor));
     }
 
     public CompletableFuture<GeoData> fetchApi2(String ipAddress) {
         if (isLocal(ipAddress)) return CompletableFuture.completedFuture(createLocalHostData());
-        return CompletableFuture.supplyAsync(() -> {
+        return plugin.getMetrics().timed("geo.api2", CompletableFuture.supplyAsync(() -> {
             try {
-                IpApiData data = httpGet(String.format(api2Url, ipAddress), null, IpApiData.class);
+                IpApiData data = httpGet("api2", ipAddress, String.format(api2Url, ipAddress), null, IpApiData.class);
                 if (data != null && data.isSuccess()) {
                     return normalize(data);
                 }
@@ -89,14 +118,69 @@ public class GeoService {
                 plugin.getLogger().severe("Error fetching from API 2: " + e.getMessage());
                 return null;
             }
+        }, executor));
+    }
+
+    /**
+     * Starts an API 3 lookup for an address that is about to log in, so the result is usually
+     * ready by the time verification asks for it, whether the player is returning or registering.
+     * Bounded so ping floods cannot fan out into API calls.
+     */
+    public void prefetch(String ipAddress) {
+        if (ipAddress == null || isLocal(ipAddress)) return;
+
+        long now = System.currentTimeMillis();
+        Prefetch existing = prefetched.get(ipAddress);
+        if (existing != null && existing.expiresAt() >= now) return;
+
+        if (prefetched.size() >= prefetchMaxEntries) {
+            prefetched.values().removeIf(entry -> entry.expiresAt() < now);
+            if (prefetched.size() >= prefetchMaxEntries) return;
+        }
+
+        prefetched.compute(ipAddress, (ip, current) -> {
+            if (current != null && current.expiresAt() >= now) return current;
+            prefetchIssued.increment();
+            return new Prefetch(requestApi3(ip), now + prefetchTtlMillis);
         });
     }
 
     public CompletableFuture<GeoData> fetchApi3(String ipAddress) {
         if (isLocal(ipAddress)) return CompletableFuture.completedFuture(createLocalHostData());
-        return CompletableFuture.supplyAsync(() -> {
+
+        CompletableFuture<GeoData> prefetch = takePrefetched(ipAddress);
+        if (prefetch != null) {
+            return prefetch;
+        }
+        prefetchMisses.increment();
+        return requestApi3(ipAddress);
+    }
+
+    private CompletableFuture<GeoData> takePrefetched(String ipAddress) {
+        Prefetch entry = prefetched.remove(ipAddress);
+        if (entry == null || entry.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        prefetchHits.increment();
+        return entry.future();
+    }
+
+    public long getPrefetchIssued() {
+        return prefetchIssued.sum();
+    }
+
+    public long getPrefetchHits() {
+        return prefetchHits.sum();
+    }
+
+    public long getPrefetchMisses() {
+        return prefetchMisses.sum();
+    }
+
+    private CompletableFuture<GeoData> requestApi3(String ipAddress) {
+        return plugin.getMetrics().timed("geo.api3", CompletableFuture.supplyAsync(() -> {
             try {
-                IpWhoData data = httpGet(String.format(api3Url, ipAddress), null, IpWhoData.class);
+                IpWhoData data = httpGet("api3", ipAddress, String.format(api3Url, ipAddress), null, IpWhoData.class);
                 if (data != null && data.success()) {
                     return normalize(data);
                 }
@@ -106,10 +190,14 @@ public class GeoService {
                 plugin.getLogger().severe("Error fetching from API 3: " + e.getMessage());
                 return null;
             }
-        });
+        }, executor));
     }
 
-    private <T> T httpGet(String urlString, String token, Class<T> classOfT) throws Exception {
+    private <T> T httpGet(String provider, String ipAddress, String urlString, String token, Class<T> classOfT) throws Exception {
+        FlightRecorderEvents.GeoLookup event = new FlightRecorderEvents.GeoLookup();
+        event.begin();
+        String outcome = "io-error";
+        int responseCode = 0;
         HttpURLConnection connection = null;
         try {
             URL url = new URL(urlString);
@@ -122,22 +210,34 @@ public class GeoService {
             connection.setConnectTimeout(3000);
             connection.setReadTimeout(3000);
 
-            int responseCode = connection.getResponseCode();
+            responseCode = connection.getResponseCode();
             if (responseCode == HttpURLConnection.HTTP_OK) {
                 try (InputStreamReader reader = new InputStreamReader(connection.getInputStream())) {
-                    return gson.fromJson(reader, classOfT);
+                    T result = gson.fromJson(reader, classOfT);
+                    outcome = "ok";
+                    return result;
                 }
             } else {
+                outcome = "http-error";
                 plugin.getLogger().warning("GeoAPI request failed for " + urlString + ". Response code: " + responseCode);
                 return null;
             }
         } catch (JsonSyntaxException e) {
+            outcome = "parse-error";
             plugin.getLogger().severe("Failed to parse GeoAPI JSON response from " + urlString + ": " + e.getMessage());
             throw e;
         } finally {
             if (connection != null) {
                 connection.disconnect();
             }
+            event.end();
+            if (event.shouldCommit()) {
+                event.provider = provider;
+                event.address = FlightRecorderEvents.hash(ipAddress);
+                event.outcome = outcome;
+                event.status = responseCode;
+                event.commit();
+            }
         }
     }
 
@@ -0,0 +1,180 @@
+package com.zeroends.strictgeoguardian.service;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.ConfigManager;
+import com.zeroends.strictgeoguardian.util.HashUtils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks failed password attempts per account, per IP and per subnet. Once a key passes its
+ * threshold it is locked out for an exponentially growing time, and attempts are refused before
+ * any password hashing happens. State is kept in throttle.json so it survives reconnects and restarts.
+ */
+public class LoginThrottle {
+
+    private static final Type STATE_TYPE = new TypeToken<HashMap<String, Entry>>(){}.getType();
+
+    private record Entry(int failures, long lastFailureAt, long lockedUntil) {}
+
+    private final StrictGeoGuardian plugin;
+    private final Gson gson;
+    private final File stateFile;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final int maxPerAccount;
+    private final int maxPerIp;
+    private final int maxPerPrefix;
+    private final long baseLockoutMillis;
+    private final long maxLockoutMillis;
+    private final long resetAfterMillis;
+
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder lockouts = new LongAdder();
+
+    public LoginThrottle(StrictGeoGuardian plugin, Gson gson, ConfigManager configManager) {
+        this.plugin = plugin;
+        this.gson = gson;
+        this.stateFile = new File(plugin.getDataFolder(), "throttle.json");
+        this.maxPerAccount = configManager.getThrottleMaxPerAccount();
+        this.maxPerIp = configManager.getThrottleMaxPerIp();
+        this.maxPerPrefix = configManager.getThrottleMaxPerPrefix();
+        this.baseLockoutMillis = configManager.getThrottleBaseLockoutSeconds() * 1000L;
+        this.maxLockoutMillis = configManager.getThrottleMaxLockoutSeconds() * 1000L;
+        this.resetAfterMillis = configManager.getThrottleResetAfterMinutes() * 60_000L;
+
+        load();
+        plugin.getScheduler().runAsyncRepeating(this::saveIfDirty, 600L, 600L);
+    }
+
+    /** Remaining lockout in milliseconds for this account or its network, or 0 if it may try. */
+    public long getLockoutMillis(UUID uuid, InetAddress address) {
+        long now = System.currentTimeMillis();
+        long remaining = 0;
+        for (String key : keys(uuid, address)) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lockedUntil() > now) {
+                remaining = Math.max(remaining, entry.lockedUntil() - now);
+            }
+        }
+        if (remaining > 0) {
+            refused.increment();
+        }
+        return remaining;
+    }
+
+    /** Records a failed attempt and returns how many attempts this account has left before a lockout. */
+    public int recordFailure(UUID uuid, InetAddress address) {
+        String[] keys = keys(uuid, address);
+        int[] limits = {maxPerAccount, maxPerIp, maxPerPrefix};
+        long now = System.currentTimeMillis();
+        int accountFailures = 0;
+
+        for (int i = 0; i < keys.length; i++) {
+            int limit = limits[i];
+            Entry updated = entries.compute(keys[i], (key, current) -> {
+                int failures = current == null || now - current.lastFailureAt() > resetAfterMillis ? 1 : current.failures() + 1;
+                long lockedUntil = current != null ? current.lockedUntil() : 0L;
+                if (failures >= limit) {
+                    int doublings = Math.min(failures - limit, 20);
+                    lockedUntil = now + Math.min(maxLockoutMillis, baseLockoutMillis << doublings);
+                    lockouts.increment();
+                }
+                return new Entry(failures, now, lockedUntil);
+            });
+            if (i == 0) {
+                accountFailures = updated.failures();
+            }
+        }
+        dirty.set(true);
+        return Math.max(0, maxPerAccount - accountFailures);
+    }
+
+    public void recordSuccess(UUID uuid) {
+        if (entries.remove(accountKey(uuid)) != null) {
+            dirty.set(true);
+        }
+    }
+
+    private String[] keys(UUID uuid, InetAddress address) {
+        return new String[] {
+                accountKey(uuid),
+                "ip:" + address.getHostAddress(),
+                "net:" + HashUtils.getSubnetPrefix(address, address.getAddress().length == 4 ? 24 : 64)
+        };
+    }
+
+    private String accountKey(UUID uuid) {
+        return "uuid:" + uuid;
+    }
+
+    private void load() {
+        if (!stateFile.exists()) {
+            return;
+        }
+        try (FileReader reader = new FileReader(stateFile)) {
+            Map<String, Entry> loaded = gson.fromJson(reader, STATE_TYPE);
+            if (loaded != null) {
+                entries.putAll(loaded);
+                pruneExpired();
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Could not load login throttle state: " + e.getMessage());
+        }
+    }
+
+    private void pruneExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.lockedUntil() <= now && now - entry.lastFailureAt() > resetAfterMillis);
+    }
+
+    private void saveIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            save();
+        }
+    }
+
+    public synchronized void save() {
+        pruneExpired();
+        File tempFile = new File(stateFile.getPath() + ".tmp");
+        try (FileWriter writer = new FileWriter(tempFile)) {
+            gson.toJson(new HashMap<>(entries), STATE_TYPE, writer);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save login throttle state: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not save login throttle state: " + e.getMessage());
+        }
+    }
+
+    public int getTrackedKeys() {
+        return entries.size();
+    }
+
+    public long getRefused() {
+        return refused.sum();
+    }
+
+    public long getLockouts() {
+        return lockouts.sum();
+    }
+}
@@ -0,0 +1,235 @@
+package com.zeroends.strictgeoguardian.service;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.FlightRecorderEvents;
+import com.zeroends.strictgeoguardian.util.PasswordUtil;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs all password hashing on a small dedicated pool so it never lands on the server thread
+ * or the common pool. Queued jobs wait in one sub-queue per player and threads take them round-robin
+ * across players, so a player with several jobs queued cannot hold everyone else back. Each player
+ * may only have a limited number of jobs queued and the total is bounded; anything beyond that is
+ * rejected instead of piling up.
+ */
+public class PasswordHashingService {
+
+    private final StrictGeoGuardian plugin;
+    private final ThreadPoolExecutor executor;
+    private final int maxPerPlayer;
+    private final String algorithm;
+    private volatile int cost;
+    private final ConcurrentHashMap<UUID, AtomicInteger> pendingPerPlayer = new ConcurrentHashMap<>();
+
+    private final int queueSize;
+    private final Object queueLock = new Object();
+    private final Map<UUID, ArrayDeque<Runnable>> queues = new HashMap<>();
+    private final ArrayDeque<UUID> turns = new ArrayDeque<>();
+    private int queued;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWorkNanos = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWorkNanos = new AtomicLong();
+
+    public PasswordHashingService(StrictGeoGuardian plugin, int threads, int queueSize, int maxPerPlayer,
+                                  String algorithm, int fixedCost, long targetMillis) {
+        this.plugin = plugin;
+        AtomicInteger threadId = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "StrictGeoGuardian-Hasher-" + threadId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxPerPlayer = maxPerPlayer;
+        this.queueSize = queueSize;
+        this.algorithm = PasswordUtil.PBKDF2.equals(algorithm) ? PasswordUtil.PBKDF2 : PasswordUtil.BCRYPT;
+        this.cost = PasswordUtil.PBKDF2.equals(this.algorithm) ? PasswordUtil.DEFAULT_PBKDF2_ITERATIONS : PasswordUtil.DEFAULT_BCRYPT_COST;
+
+        if (fixedCost > 0) {
+            this.cost = fixedCost;
+        } else {
+            executor.execute(() -> {
+                this.cost = PasswordUtil.calibrate(this.algorithm, targetMillis);
+                plugin.getLogger().info("Password hashing calibrated: " + this.algorithm + " with cost " + cost + " (target " + targetMillis + " ms).");
+            });
+        }
+    }
+
+    public CompletableFuture<String> hash(UUID owner, String password) {
+        int currentCost = cost;
+        return submit(owner, "password.hash", currentCost, () -> PasswordUtil.hashPassword(password, algorithm, currentCost));
+    }
+
+    public CompletableFuture<Boolean> verify(UUID owner, String password, String hash) {
+        return submit(owner, "password.verify", 0, () -> PasswordUtil.checkPassword(password, hash));
+    }
+
+    public boolean needsRehash(String hash) {
+        return PasswordUtil.needsRehash(hash, algorithm, cost);
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    private <T> CompletableFuture<T> submit(UUID owner, String stage, int jobCost, Supplier<T> work) {
+        AtomicInteger pending = pendingPerPlayer.computeIfAbsent(owner, key -> new AtomicInteger());
+        if (pending.incrementAndGet() > maxPerPlayer) {
+            release(owner, pending);
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Player already has a password check in progress."));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        Runnable job = () -> {
+            long startedAt = System.nanoTime();
+            totalWaitNanos.add(startedAt - queuedAt);
+            T value = null;
+            Throwable failure = null;
+            FlightRecorderEvents.PasswordHash event = new FlightRecorderEvents.PasswordHash();
+            event.begin();
+            try {
+                value = work.get();
+            } catch (Throwable t) {
+                failure = t;
+            }
+            event.end();
+            long elapsed = System.nanoTime() - startedAt;
+            totalWorkNanos.add(elapsed);
+            maxWorkNanos.accumulateAndGet(elapsed, Math::max);
+            plugin.getMetrics().stage(stage).recordNanos(elapsed);
+            completed.increment();
+            if (event.shouldCommit()) {
+                event.player = FlightRecorderEvents.hash(owner);
+                event.operation = stage;
+                event.algorithm = algorithm;
+                event.cost = jobCost;
+                event.outcome = failure != null ? "error" : Boolean.FALSE.equals(value) ? "mismatch" : "ok";
+                event.queueWait = startedAt - queuedAt;
+                event.commit();
+            }
+            // Release before completing so follow-up work for the same player is not rejected.
+            release(owner, pending);
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        };
+        if (!enqueue(owner, job)) {
+            release(owner, pending);
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException("Password hashing queue is full."));
+            return result;
+        }
+        try {
+            // One pool task per queued job; each runs whichever player's turn it is, not necessarily this job.
+            executor.execute(this::runNext);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private boolean enqueue(UUID owner, Runnable job) {
+        synchronized (queueLock) {
+            if (queued >= queueSize) {
+                return false;
+            }
+            ArrayDeque<Runnable> queue = queues.get(owner);
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                queues.put(owner, queue);
+                turns.addLast(owner);
+            }
+            queue.addLast(job);
+            queued++;
+            return true;
+        }
+    }
+
+    private void runNext() {
+        Runnable job;
+        synchronized (queueLock) {
+            UUID owner = turns.pollFirst();
+            if (owner == null) {
+                return;
+            }
+            ArrayDeque<Runnable> queue = queues.get(owner);
+            job = queue.pollFirst();
+            if (queue.isEmpty()) {
+                queues.remove(owner);
+            } else {
+                turns.addLast(owner);
+            }
+            queued--;
+        }
+        job.run();
+    }
+
+    private void release(UUID owner, AtomicInteger pending) {
+        if (pending.decrementAndGet() <= 0) {
+            pendingPerPlayer.remove(owner, pending);
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (queueLock) {
+            return queued;
+        }
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public double getAverageWorkMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0.0 : totalWorkNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getAverageWaitMillis() {
+        long count = completed.sum();
+        return count == 0 ? 0.0 : totalWaitNanos.sum() / (double) count / 1_000_000.0;
+    }
+
+    public double getMaxWorkMillis() {
+        return maxWorkNanos.get() / 1_000_000.0;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,114 @@
+package com.zeroends.strictgeoguardian.service;
+
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.util.HashUtils;
+
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Short-lived, single-use tickets that let an authenticated player reconnect from the same
+ * subnet without repeating the full verification. Tickets live only in memory.
+ */
+public class SessionTicketService {
+
+    private static final int PURGE_THRESHOLD = 512;
+
+    private record Ticket(String subnetPrefix, long expiresAt, String signature) {}
+
+    private final StrictGeoGuardian plugin;
+    private final long windowMillis;
+    private final ConcurrentHashMap<UUID, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SessionTicketService(StrictGeoGuardian plugin, long windowSeconds) {
+        this.plugin = plugin;
+        this.windowMillis = windowSeconds * 1000L;
+    }
+
+    public void issue(UUID uuid, String ipAddress) {
+        String prefix = subnetPrefix(ipAddress);
+        if (prefix == null || windowMillis <= 0) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + windowMillis;
+        tickets.put(uuid, new Ticket(prefix, expiresAt, sign(uuid, prefix, expiresAt)));
+        issued.increment();
+
+        if (tickets.size() > PURGE_THRESHOLD) {
+            purgeExpired();
+        }
+    }
+
+    /** Hits and misses only count players that held a ticket; everyone else was never eligible. */
+    public boolean redeem(UUID uuid, String ipAddress) {
+        Ticket ticket = tickets.remove(uuid);
+        if (ticket == null) {
+            return false;
+        }
+
+        String prefix = subnetPrefix(ipAddress);
+        boolean valid = ticket.expiresAt() >= System.currentTimeMillis()
+                && ticket.subnetPrefix().equals(prefix)
+                && MessageDigest.isEqual(
+                        ticket.signature().getBytes(StandardCharsets.US_ASCII),
+                        sign(uuid, prefix, ticket.expiresAt()).getBytes(StandardCharsets.US_ASCII));
+        if (valid) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return valid;
+    }
+
+    /** Drops any outstanding ticket, for when whatever it vouched for has changed. */
+    public void revoke(UUID uuid) {
+        tickets.remove(uuid);
+    }
+
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+    }
+
+    private String sign(UUID uuid, String prefix, long expiresAt) {
+        return HashUtils.hmacSha256(plugin.getConfigManager().getHmacKey(), "ticket|" + uuid + "|" + prefix + "|" + expiresAt);
+    }
+
+    private String subnetPrefix(String ipAddress) {
+        try {
+            InetAddress address = InetAddress.getByName(ipAddress);
+            return HashUtils.getSubnetPrefix(address, address.getAddress().length == 4 ? 24 : 64);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public int getActiveTickets() {
+        return tickets.size();
+    }
+
+    public long getIssued() {
+        return issued.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0.0 : hits.sum() * 100.0 / total;
+    }
+}
@@ -1,131 +1,228 @@
 package com.zeroends.strictgeoguardian.service;
 
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.AuditLog;
 import com.zeroends.strictgeoguardian.core.AuthManager;
 import com.zeroends.strictgeoguardian.core.ConfigManager;
-import com.zeroends.strictgeoguardian.model.AuthStatus;
+import com.zeroends.strictgeoguardian.core.FlightRecorderEvents;
+import com.zeroends.strictgeoguardian.core.LoginTrace;
 import com.zeroends.strictgeoguardian.model.Fingerprint;
 import com.zeroends.strictgeoguardian.model.GeoData;
 import com.zeroends.strictgeoguardian.model.VerificationResult;
 import com.zeroends.strictgeoguardian.storage.IAuthStorage;
 import com.zeroends.strictgeoguardian.storage.IDataStorage;
 
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.logging.Level;
 
 public class VerificationService {
 
+    private record GeoCheck(String label, String stage, Function<String, CompletableFuture<GeoData>> fetcher) {}
+
     private final StrictGeoGuardian plugin;
     private final IDataStorage fingerprintStorage;
     private final IAuthStorage authStorage;
     private final GeoService geoService;
     private final FingerprintService fingerprintService;
     private final ConfigManager configManager;
+    private final SessionTicketService sessionTickets;
+    private final List<GeoCheck> geoChecks;
     private AuthManager authManager;
 
-    public VerificationService(StrictGeoGuardian plugin, IDataStorage fingerprintStorage, IAuthStorage authStorage, GeoService geoService, FingerprintService fingerprintService, ConfigManager configManager) {
+    public VerificationService(StrictGeoGuardian plugin, IDataStorage fingerprintStorage, IAuthStorage authStorage, GeoService geoService, FingerprintService fingerprintService, ConfigManager configManager, SessionTicketService sessionTickets) {
         this.plugin = plugin;
         this.fingerprintStorage = fingerprintStorage;
         this.authStorage = authStorage;
         this.geoService = geoService;
         this.fingerprintService = fingerprintService;
         this.configManager = configManager;
+        this.sessionTickets = sessionTickets;
+        this.geoChecks = List.of(
+                new GeoCheck("API 3", "geo.api3", geoService::fetchApi3),
+                new GeoCheck("API 2", "geo.api2", geoService::fetchApi2),
+                new GeoCheck("API 1 (Source of Truth)", "geo.api1", geoService::fetchApi1)
+        );
     }
     
     public void setAuthManager(AuthManager authManager) {
         this.authManager = authManager;
     }
 
-    public VerificationResult verifyPlayer(String playerName, UUID playerUuid, String ipAddress) {
-        try {
-            if (configManager.isPlayerWhitelisted(playerName)) {
-                return VerificationResult.autoAllow(100.0);
+    public CompletableFuture<VerificationResult> verifyPlayer(String playerName, UUID playerUuid, String ipAddress) {
+        long start = System.nanoTime();
+        FlightRecorderEvents.Verification event = new FlightRecorderEvents.Verification();
+        event.begin();
+        LoginTrace trace = plugin.getTracer().start(playerName, playerUuid);
+        return verify(playerName, playerUuid, ipAddress, trace).whenComplete((result, error) -> {
+            plugin.getMetrics().record("verification.total", start);
+            if (result != null) {
+                plugin.getMetrics().outcome(result.getOutcome());
             }
+            plugin.getTracer().finish(trace, result != null ? result.getOutcome() : "error");
+            event.end();
+            if (event.shouldCommit()) {
+                event.player = FlightRecorderEvents.hash(playerUuid);
+                event.address = FlightRecorderEvents.hash(ipAddress);
+                event.provider = trace.getProvider();
+                event.outcome = result != null ? result.getOutcome() : "error";
+                event.commit();
+            }
+        });
+    }
 
-            CompletableFuture<Boolean> isRegisteredFuture = authStorage.isPlayerRegistered(playerUuid);
-            CompletableFuture<Fingerprint> storedFingerprintFuture = fingerprintStorage.loadFingerprint(playerName);
+    private CompletableFuture<VerificationResult> verify(String playerName, UUID playerUuid, String ipAddress, LoginTrace trace) {
+        if (configManager.isPlayerWhitelisted(playerName)) {
+            trace.setProvider("whitelist");
+            return CompletableFuture.completedFuture(VerificationResult.autoAllow(100.0));
+        }
 
-            boolean isRegistered = isRegisteredFuture.join();
-            Fingerprint storedFingerprint = storedFingerprintFuture.join();
+        if (sessionTickets.redeem(playerUuid, ipAddress)) {
+            trace.setProvider("session-ticket");
+            return CompletableFuture.completedFuture(VerificationResult.sessionResumed());
+        }
 
-            if (!isRegistered) {
-                return handleFirstLogin(playerUuid, ipAddress);
-            }
+        AtomicReference<Boolean> registered = new AtomicReference<>();
+        // Set once the caller has its answer; the pipeline may still be running after a timeout.
+        AtomicBoolean finished = new AtomicBoolean();
+        CompletableFuture<VerificationResult> pipeline;
+        try {
+            pipeline = trace.timed("storage.ready", awaitStorage())
+                    .thenCompose(ready -> {
+                        if (!ready) {
+                            plugin.getAuditLog().record(AuditLog.Type.STORAGE_NOT_READY, playerUuid, playerName, ipAddress, "refused");
+                            return CompletableFuture.completedFuture(VerificationResult.autoBlockError("Storage Not Ready"));
+                        }
+                        CompletableFuture<Boolean> isRegisteredFuture = trace.timed("storage.auth-lookup", plugin.getMetrics().timed("storage.auth-lookup", authStorage.isPlayerRegistered(playerUuid)));
+                        CompletableFuture<Fingerprint> storedFingerprintFuture = trace.timed("storage.fingerprint-load", plugin.getMetrics().timed("storage.fingerprint-load", fingerprintStorage.loadFingerprint(playerName)));
+                        return isRegisteredFuture
+                                .thenCombine(storedFingerprintFuture, (isRegistered, storedFingerprint) -> {
+                                    registered.set(isRegistered);
+                                    return route(playerName, playerUuid, ipAddress, isRegistered, storedFingerprint, trace, finished);
+                                })
+                                .thenCompose(Function.identity());
+                    });
+        } catch (Exception e) {
+            pipeline = CompletableFuture.failedFuture(e);
+        }
 
-            if (storedFingerprint == null) {
-                plugin.getLogger().warning("Player " + playerName + " is registered for Auth, but has no fingerprint. Forcing re-registration.");
-                return handleFirstLogin(playerUuid, ipAddress);
-            }
+        return pipeline
+                .orTimeout(configManager.getVerificationDeadlineMs(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> finished.set(true))
+                .exceptionally(ex -> {
+                    Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                    if (cause instanceof TimeoutException) {
+                        return onDeadlineExceeded(playerName, playerUuid, ipAddress, registered.get());
+                    }
+                    plugin.getLogger().log(Level.SEVERE, "Exception during verification for " + playerName, cause);
+                    return VerificationResult.autoBlockError("Internal Verification Error");
+                });
+    }
 
-            return handleReturningPlayer(playerName, playerUuid, ipAddress, storedFingerprint);
+    private CompletableFuture<Boolean> awaitStorage() {
+        return authStorage.whenReady()
+                .thenApply(ignored -> true)
+                .completeOnTimeout(false, configManager.getStorageReadyTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
 
-        } catch (Exception e) {
-            plugin.getLogger().severe("Exception during verification for " + playerName + ": " + e.getMessage());
-            e.printStackTrace();
-            return VerificationResult.autoBlockError("Internal Verification Error");
+    private CompletableFuture<VerificationResult> route(String playerName, UUID playerUuid, String ipAddress, boolean isRegistered, Fingerprint storedFingerprint, LoginTrace trace, AtomicBoolean finished) {
+        if (!isRegistered) {
+            return handleFirstLogin(playerName, playerUuid, ipAddress, trace, finished);
+        }
+
+        if (storedFingerprint == null) {
+            plugin.getAuditLog().record(AuditLog.Type.FINGERPRINT_MISSING, playerUuid, playerName, ipAddress, "re-register");
+            return handleFirstLogin(playerName, playerUuid, ipAddress, trace, finished);
         }
+
+        return handleReturningPlayer(playerName, playerUuid, ipAddress, storedFingerprint, trace, finished);
     }
 
-    private VerificationResult handleFirstLogin(UUID playerUuid, String ipAddress) {
-        GeoData registrationGeoData = geoService.fetchRegistrationData(ipAddress).join();
-        if (registrationGeoData == null || !registrationGeoData.isSuccess()) {
-            plugin.getLogger().warning("Failed to fetch valid GeoData for new player " + playerUuid + " on first login.");
-            return VerificationResult.autoBlockError("GeoIP Lookup Failed");
+    private VerificationResult onDeadlineExceeded(String playerName, UUID playerUuid, String ipAddress, Boolean isRegistered) {
+        if (configManager.isVerificationFailOpen() && Boolean.TRUE.equals(isRegistered)) {
+            plugin.getAuditLog().record(AuditLog.Type.DEADLINE_EXCEEDED, playerUuid, playerName, ipAddress, "password");
+            return VerificationResult.needsLogin("Verification Deadline Exceeded");
         }
-        authManager.storePendingGeoData(playerUuid, registrationGeoData);
-        return VerificationResult.needsRegistration();
+        plugin.getAuditLog().record(AuditLog.Type.DEADLINE_EXCEEDED, playerUuid, playerName, ipAddress, "refused");
+        return VerificationResult.autoBlockError("Verification Deadline Exceeded");
+    }
+
+    private static VerificationResult abandoned() {
+        return VerificationResult.autoBlockError("Verification Deadline Exceeded");
     }
 
-    private VerificationResult handleReturningPlayer(String playerName, UUID playerUuid, String ipAddress, Fingerprint stored) {
-        double geoTolerance = configManager.getGeoToleranceKm();
-        GeoData lastValidGeoData = null;
-
-        // 1. Try API 3 (ipwho.is)
-        GeoData api3Data = geoService.fetchApi3(ipAddress).join();
-        if (api3Data != null && api3Data.isSuccess()) {
-            lastValidGeoData = api3Data;
-            Fingerprint fp3 = fingerprintService.createFingerprint(playerName, playerUuid, ipAddress, api3Data).join();
-            if (fingerprintService.isGeographicalIdentical(fp3, stored, geoTolerance)) {
-                plugin.getLogger().info("API 3 check passed for " + playerName);
-                return calculateScoreAndDecide(fp3, stored);
+    private CompletableFuture<VerificationResult> handleFirstLogin(String playerName, UUID playerUuid, String ipAddress, LoginTrace trace, AtomicBoolean finished) {
+        trace.setProvider("registration");
+        return trace.timed("geo.registration", geoService.fetchRegistrationData(ipAddress)).thenApply(registrationGeoData -> {
+            if (registrationGeoData == null || !registrationGeoData.isSuccess()) {
+                plugin.getAuditLog().record(AuditLog.Type.GEO_LOOKUP_FAILED, playerUuid, playerName, ipAddress, "refused");
+                return VerificationResult.autoBlockError("GeoIP Lookup Failed");
             }
-        }
-        plugin.getLogger().warning("API 3 check failed/mismatched for " + playerName + ". Trying API 2...");
-
-        // 2. Try API 2 (ip-api.com)
-        GeoData api2Data = geoService.fetchApi2(ipAddress).join();
-        if (api2Data != null && api2Data.isSuccess()) {
-            lastValidGeoData = api2Data;
-            Fingerprint fp2 = fingerprintService.createFingerprint(playerName, playerUuid, ipAddress, api2Data).join();
-            if (fingerprintService.isGeographicalIdentical(fp2, stored, geoTolerance)) {
-                plugin.getLogger().info("API 2 re-check passed for " + playerName);
-                return calculateScoreAndDecide(fp2, stored);
+            if (finished.get()) {
+                return abandoned();
             }
+            authManager.storePendingGeoData(playerUuid, registrationGeoData);
+            return VerificationResult.needsRegistration();
+        });
+    }
+
+    private CompletableFuture<VerificationResult> handleReturningPlayer(String playerName, UUID playerUuid, String ipAddress, Fingerprint stored, LoginTrace trace, AtomicBoolean finished) {
+        return runGeoCheck(0, playerName, playerUuid, ipAddress, stored, null, trace, finished);
+    }
+
+    private CompletableFuture<VerificationResult> runGeoCheck(int index, String playerName, UUID playerUuid, String ipAddress, Fingerprint stored, GeoData lastValidGeoData, LoginTrace trace, AtomicBoolean finished) {
+        if (finished.get()) {
+            return CompletableFuture.completedFuture(abandoned());
         }
-        plugin.getLogger().warning("API 2 check failed/mismatched for " + playerName + ". Trying API 1 (Source of Truth)...");
-
-        // 3. Try API 1 (findip.net)
-        GeoData api1Data = geoService.fetchApi1(ipAddress).join();
-        if (api1Data != null && api1Data.isSuccess()) {
-            lastValidGeoData = api1Data;
-            Fingerprint fp1 = fingerprintService.createFingerprint(playerName, playerUuid, ipAddress, api1Data).join();
-            if (fingerprintService.isGeographicalIdentical(fp1, stored, geoTolerance)) {
-                plugin.getLogger().info("API 1 (Source of Truth) re-check passed for " + playerName);
-                return calculateScoreAndDecide(fp1, stored);
-            }
-        } else {
-             plugin.getLogger().severe("FINAL CHECK FAILED: API 1 (Source of Truth) could not fetch data for " + playerName + ".");
+        if (index >= geoChecks.size()) {
+            return CompletableFuture.completedFuture(requirePassword(playerName, playerUuid, ipAddress, lastValidGeoData));
         }
 
-        plugin.getLogger().warning("All API checks failed for " + playerName + ". Forcing password verification.");
+        GeoCheck check = geoChecks.get(index);
+
+        LoginTrace.Span checkSpan = trace.begin(check.stage());
+        LoginTrace.Span fetchSpan = trace.begin("fetch", checkSpan);
+        return check.fetcher().apply(ipAddress).thenCompose(data -> {
+            if (data == null || !data.isSuccess()) {
+                LoginTrace.end(fetchSpan, "failed");
+                LoginTrace.end(checkSpan, "failed");
+                return runGeoCheck(index + 1, playerName, playerUuid, ipAddress, stored, lastValidGeoData, trace, finished);
+            }
+
+            LoginTrace.end(fetchSpan, "ok");
+            LoginTrace.Span fingerprintSpan = trace.begin("createFingerprint", checkSpan);
+            return fingerprintService.createFingerprint(playerName, playerUuid, ipAddress, data).thenCompose(current -> {
+                LoginTrace.end(fingerprintSpan, null);
+                if (fingerprintService.isGeographicalIdentical(current, stored, configManager.getGeoToleranceKm())) {
+                    trace.setProvider(check.label());
+                    LoginTrace.Span scoringSpan = trace.begin("scoring", checkSpan);
+                    VerificationResult result = calculateScoreAndDecide(current, stored);
+                    LoginTrace.end(scoringSpan, result.getOutcome());
+                    LoginTrace.end(checkSpan, "passed");
+                    return CompletableFuture.completedFuture(result);
+                }
+                LoginTrace.end(checkSpan, "mismatch");
+                return runGeoCheck(index + 1, playerName, playerUuid, ipAddress, stored, data, trace, finished);
+            });
+        });
+    }
+
+    private VerificationResult requirePassword(String playerName, UUID playerUuid, String ipAddress, GeoData lastValidGeoData) {
         if (lastValidGeoData != null) {
             authManager.storePendingGeoData(playerUuid, lastValidGeoData);
         } else {
-            plugin.getLogger().severe("Could not get ANY valid GeoData for " + playerName + ". Cannot update fingerprint even if password is correct.");
-            GeoData fallbackData = geoService.createLocalHostData(); 
+            plugin.getAuditLog().record(AuditLog.Type.GEO_LOOKUP_FAILED, playerUuid, playerName, ipAddress, "password");
+            GeoData fallbackData = geoService.createLocalHostData();
             authManager.storePendingGeoData(playerUuid, fallbackData);
         }
-        
+
         return VerificationResult.needsLogin("Geographical Mismatch");
     }
 
@@ -137,8 +234,7 @@ public class VerificationService {
         } else if (similarityScore >= configManager.getScoreAllowMonitor()) {
             return VerificationResult.allowMonitor(similarityScore);
         } else {
-            plugin.getLogger().info("Geo match OK, but low similarity score (" + similarityScore + "). Forcing password verification.");
-            return VerificationResult.needsLogin("Low Similarity Score");
+            return VerificationResult.needsLogin("Low Similarity Score", similarityScore);
         }
     }
 }
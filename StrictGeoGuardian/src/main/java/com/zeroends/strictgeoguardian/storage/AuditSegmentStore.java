@@ -0,0 +1,195 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only audit segments under {@code audit/}. Each {@code audit-N.log} holds one text line
+ * per event and is paired with {@code audit-N.idx}, a list of fixed-size (uuid, offset, length)
+ * records, so a player's history can be found without scanning the logs. Once a segment reaches
+ * its size limit a new one is started and the oldest beyond {@code maxSegments} are deleted.
+ */
+public class AuditSegmentStore {
+
+    private static final int INDEX_RECORD_BYTES = 28;
+
+    private record Segment(int number, long logSize, long indexSize) {}
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxSegments;
+
+    private int current;
+    private FileChannel log;
+    private FileChannel index;
+
+    public AuditSegmentStore(Path directory, long segmentBytes, int maxSegments) throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        Files.createDirectories(directory);
+
+        int highest = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "audit-*.log")) {
+            for (Path entry : entries) {
+                highest = Math.max(highest, segmentNumber(entry));
+            }
+        }
+        open(Math.max(1, highest));
+    }
+
+    private static int segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring("audit-".length(), name.lastIndexOf('.')));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Path logFile(int number) {
+        return directory.resolve("audit-" + number + ".log");
+    }
+
+    private Path indexFile(int number) {
+        return directory.resolve("audit-" + number + ".idx");
+    }
+
+    private void open(int number) throws IOException {
+        current = number;
+        log = FileChannel.open(logFile(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        index = FileChannel.open(indexFile(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Appends one batch. {@code uuids} holds (msb, lsb) pairs, one per line, in the same order as {@code lines}. */
+    public synchronized void append(long[] uuids, List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        if (log.size() >= segmentBytes) {
+            rotate();
+        }
+
+        long offset = log.size();
+        ByteBuffer indexBuffer = ByteBuffer.allocate(lines.size() * INDEX_RECORD_BYTES);
+        byte[][] encoded = new byte[lines.size()][];
+        int total = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            encoded[i] = (lines.get(i) + '\n').getBytes(StandardCharsets.UTF_8);
+            indexBuffer.putLong(uuids[i * 2]).putLong(uuids[i * 2 + 1]).putLong(offset + total).putInt(encoded[i].length);
+            total += encoded[i].length;
+        }
+
+        ByteBuffer logBuffer = ByteBuffer.allocate(total);
+        for (byte[] line : encoded) {
+            logBuffer.put(line);
+        }
+        logBuffer.flip();
+        while (logBuffer.hasRemaining()) {
+            log.write(logBuffer);
+        }
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            index.write(indexBuffer);
+        }
+    }
+
+    private void rotate() throws IOException {
+        log.close();
+        index.close();
+        open(current + 1);
+        int oldest = current - maxSegments;
+        for (int number = oldest; number >= 1; number--) {
+            boolean removed = Files.deleteIfExists(logFile(number));
+            Files.deleteIfExists(indexFile(number));
+            if (!removed) {
+                break;
+            }
+        }
+    }
+
+    /** Most recent lines for a player, newest first. */
+    public List<String> query(UUID uuid, int limit) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        synchronized (this) {
+            for (int number = current; number >= 1 && number > current - maxSegments; number--) {
+                if (number == current) {
+                    segments.add(new Segment(number, log.size(), index.size()));
+                } else if (Files.exists(indexFile(number))) {
+                    segments.add(new Segment(number, Files.size(logFile(number)), Files.size(indexFile(number))));
+                }
+            }
+        }
+
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        List<String> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (result.size() >= limit) {
+                break;
+            }
+            List<String> matches;
+            try {
+                matches = readSegment(segment, msb, lsb);
+            } catch (NoSuchFileException e) {
+                continue; // rotated away while we were reading
+            }
+            for (int i = matches.size() - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(matches.get(i));
+            }
+        }
+        return result;
+    }
+
+    private List<String> readSegment(Segment segment, long msb, long lsb) throws IOException {
+        List<String> lines = new ArrayList<>();
+        long records = segment.indexSize() / INDEX_RECORD_BYTES;
+        if (records == 0) {
+            return lines;
+        }
+        ByteBuffer indexBuffer = ByteBuffer.allocate((int) (records * INDEX_RECORD_BYTES));
+        try (FileChannel indexChannel = FileChannel.open(indexFile(segment.number()), StandardOpenOption.READ);
+             FileChannel logChannel = FileChannel.open(logFile(segment.number()), StandardOpenOption.READ)) {
+            readFully(indexChannel, indexBuffer, 0L);
+            indexBuffer.flip();
+            while (indexBuffer.remaining() >= INDEX_RECORD_BYTES) {
+                long recordMsb = indexBuffer.getLong();
+                long recordLsb = indexBuffer.getLong();
+                long offset = indexBuffer.getLong();
+                int length = indexBuffer.getInt();
+                if (recordMsb != msb || recordLsb != lsb || offset + length > segment.logSize()) {
+                    continue;
+                }
+                ByteBuffer line = ByteBuffer.allocate(length);
+                readFully(logChannel, line, offset);
+                lines.add(new String(line.array(), 0, Math.max(0, length - 1), StandardCharsets.UTF_8));
+            }
+        }
+        return lines;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        log.force(false);
+        index.force(false);
+        log.close();
+        index.close();
+    }
+}
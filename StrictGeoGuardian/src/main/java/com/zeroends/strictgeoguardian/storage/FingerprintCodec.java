@@ -0,0 +1,224 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import com.zeroends.strictgeoguardian.model.Fingerprint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Versioned binary encoding of {@link Fingerprint}.
+ *
+ * Layout: magic, version, a per-record string dictionary, then the fields in record order.
+ * Strings are dictionary references (0 = null), integers are zig-zag varints, {@code createdAt}
+ * is epoch millis, and the 64-char hex HMAC fields are stored as their raw 32 bytes.
+ */
+public final class FingerprintCodec {
+
+    private static final int MAGIC = 0xF6;
+    private static final int VERSION = 1;
+
+    private static final int FLAG_CREATED_AT = 1;
+    private static final int FLAG_UUID = 1 << 1;
+
+    private static final int HASH_NULL = 0;
+    private static final int HASH_RAW = 1;
+    private static final int HASH_STRING = 2;
+
+    private FingerprintCodec() {
+    }
+
+    public static byte[] encode(Fingerprint fp) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        writeVarLong(body, zigZag(fp.id()));
+        writeString(body, dictionary, fp.playerName());
+
+        int flags = (fp.createdAt() != null ? FLAG_CREATED_AT : 0) | (fp.javaUuid() != null ? FLAG_UUID : 0);
+        body.write(flags);
+        if (fp.createdAt() != null) {
+            writeVarLong(body, zigZag(fp.createdAt().toEpochMilli()));
+        }
+        if (fp.javaUuid() != null) {
+            writeLong(body, fp.javaUuid().getMostSignificantBits());
+            writeLong(body, fp.javaUuid().getLeastSignificantBits());
+        }
+
+        writeString(body, dictionary, fp.edition());
+        writeString(body, dictionary, fp.profilePropertyDigest());
+        writeString(body, dictionary, fp.ipVersion());
+        writeHash(body, dictionary, fp.hashedPrefix());
+        writeHash(body, dictionary, fp.hashedPseudoAsn());
+        writeHash(body, dictionary, fp.hashedPtr());
+        writeVarLong(body, zigZag(fp.tcpTtl()));
+        writeVarLong(body, zigZag(fp.tcpMss()));
+        writeString(body, dictionary, fp.clientBrand());
+        writeString(body, dictionary, fp.modListHash());
+        writeString(body, dictionary, fp.resourcePackHash());
+        writeString(body, dictionary, fp.viewportSettings());
+        writeString(body, dictionary, fp.locale());
+        writeString(body, dictionary, fp.skinParts());
+        writeString(body, dictionary, fp.countryCode());
+        writeString(body, dictionary, fp.continentCode());
+        writeString(body, dictionary, fp.region());
+        writeString(body, dictionary, fp.city());
+        writeLong(body, Double.doubleToRawLongBits(fp.latitude()));
+        writeLong(body, Double.doubleToRawLongBits(fp.longitude()));
+        writeString(body, dictionary, fp.timezone());
+        writeString(body, dictionary, fp.postal());
+        writeString(body, dictionary, fp.calling_code());
+        writeString(body, dictionary, fp.asn());
+        writeString(body, dictionary, fp.org());
+        writeString(body, dictionary, fp.isp());
+        writeString(body, dictionary, fp.domain());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 128);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(body.toByteArray(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    public static Fingerprint decode(byte[] data) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        try {
+            if ((in.get() & 0xFF) != MAGIC) {
+                throw new IOException("Not a binary fingerprint record.");
+            }
+            int version = in.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary fingerprint version " + version + ".");
+            }
+
+            int dictionarySize = (int) readVarLong(in);
+            List<String> dictionary = new ArrayList<>(dictionarySize);
+            for (int i = 0; i < dictionarySize; i++) {
+                byte[] bytes = new byte[(int) readVarLong(in)];
+                in.get(bytes);
+                dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+
+            long id = unZigZag(readVarLong(in));
+            String playerName = readString(in, dictionary);
+            int flags = in.get() & 0xFF;
+            Instant createdAt = (flags & FLAG_CREATED_AT) != 0 ? Instant.ofEpochMilli(unZigZag(readVarLong(in))) : null;
+            UUID javaUuid = (flags & FLAG_UUID) != 0 ? new UUID(in.getLong(), in.getLong()) : null;
+
+            return new Fingerprint(
+                id, playerName, createdAt, javaUuid,
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary),
+                readHash(in, dictionary), readHash(in, dictionary), readHash(in, dictionary),
+                (int) unZigZag(readVarLong(in)), (int) unZigZag(readVarLong(in)),
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary),
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary),
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary), readString(in, dictionary),
+                Double.longBitsToDouble(in.getLong()), Double.longBitsToDouble(in.getLong()),
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary),
+                readString(in, dictionary), readString(in, dictionary), readString(in, dictionary), readString(in, dictionary)
+            );
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt binary fingerprint record: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index == null) {
+            index = dictionary.size();
+            dictionary.put(value, index);
+        }
+        writeVarLong(out, index + 1);
+    }
+
+    private static String readString(ByteBuffer in, List<String> dictionary) {
+        int ref = (int) readVarLong(in);
+        return ref == 0 ? null : dictionary.get(ref - 1);
+    }
+
+    private static void writeHash(ByteArrayOutputStream out, Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            out.write(HASH_NULL);
+        } else if (isHex256(value)) {
+            out.write(HASH_RAW);
+            for (int i = 0; i < 64; i += 2) {
+                out.write((Character.digit(value.charAt(i), 16) << 4) | Character.digit(value.charAt(i + 1), 16));
+            }
+        } else {
+            out.write(HASH_STRING);
+            writeString(out, dictionary, value);
+        }
+    }
+
+    private static String readHash(ByteBuffer in, List<String> dictionary) {
+        int tag = in.get();
+        if (tag == HASH_NULL) return null;
+        if (tag == HASH_STRING) return readString(in, dictionary);
+
+        char[] hex = new char[64];
+        for (int i = 0; i < 32; i++) {
+            int b = in.get() & 0xFF;
+            hex[i * 2] = Character.forDigit(b >>> 4, 16);
+            hex[i * 2 + 1] = Character.forDigit(b & 0xF, 16);
+        }
+        return new String(hex);
+    }
+
+    private static boolean isHex256(String value) {
+        if (value.length() != 64) return false;
+        for (int i = 0; i < 64; i++) {
+            char c = value.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) return false;
+        }
+        return true;
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+        }
+        throw new IllegalStateException("Varint is too long.");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
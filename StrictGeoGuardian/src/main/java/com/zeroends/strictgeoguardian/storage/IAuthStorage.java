@@ -5,11 +5,23 @@ import java.util.concurrent.CompletableFuture;
 
 public interface IAuthStorage {
 
+    default CompletableFuture<Void> whenReady() {
+        return CompletableFuture.completedFuture(null);
+    }
+
     CompletableFuture<Boolean> isPlayerRegistered(UUID uuid);
 
+    /** Answers from memory without waiting, or returns null when that would need I/O. */
+    default Boolean peekRegistered(UUID uuid) {
+        return null;
+    }
+
     CompletableFuture<String> getPasswordHash(UUID uuid);
 
     CompletableFuture<Void> savePasswordHash(UUID uuid, String playerName, String hash);
 
     CompletableFuture<Void> removePlayer(UUID uuid);
+
+    default void close() {
+    }
 }
@@ -15,4 +15,11 @@ public interface IDataStorage {
     CompletableFuture<Void> deleteFingerprint(String playerName);
 
     CompletableFuture<java.util.List<Fingerprint>> getAllFingerprints();
+
+    default long getSkippedWrites() {
+        return 0L;
+    }
+
+    default void close() {
+    }
 }
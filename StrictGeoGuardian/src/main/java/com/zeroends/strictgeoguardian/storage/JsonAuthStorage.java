@@ -10,16 +10,33 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
 
 public class JsonAuthStorage implements IAuthStorage {
 
+    private static final int SHARD_COUNT = 256;
+    private static final Type CACHE_TYPE = new TypeToken<ConcurrentHashMap<UUID, AuthData>>(){}.getType();
+
     private final StrictGeoGuardian plugin;
+    private final Executor executor;
     private final File authFile;
+    private final File shardFolder;
+    private final boolean sharded;
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
-    private ConcurrentHashMap<UUID, AuthData> authCache = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, AuthData> authCache = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> ready;
+
+    private final Object[] shardLocks = new Object[SHARD_COUNT];
+    private final AtomicIntegerArray shardLoaded = new AtomicIntegerArray(SHARD_COUNT);
 
     private static class AuthData {
         String playerName;
@@ -30,58 +47,255 @@ public class JsonAuthStorage implements IAuthStorage {
         }
     }
 
-    public JsonAuthStorage(StrictGeoGuardian plugin) {
+    public JsonAuthStorage(StrictGeoGuardian plugin) throws IOException {
         this.plugin = plugin;
+        this.executor = plugin.getExecutors().io("auth-storage");
         this.authFile = new File(plugin.getDataFolder(), "authentication.json");
-        loadDataAsync();
+        this.shardFolder = new File(plugin.getDataFolder(), "auth");
+
+        File indexFile = new File(plugin.getDataFolder(), "authentication.idx");
+        if (indexFile.exists() && indexFile.lastModified() > Math.max(authFile.lastModified(), shardFolder.lastModified())) {
+            throw new IOException("authentication.idx is newer than the JSON authentication data, so the JSON copy may hold outdated passwords. "
+                    + "Set storage.auth-backend to \"mapped\", or restore the JSON data from its .bak copy and remove authentication.idx to go back.");
+        }
+        boolean lazyShards = plugin.getConfigManager().isAuthLazyShards();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shardLocks[i] = new Object();
+        }
+
+        // Once data lives in auth/ it stays there; the setting only decides whether shards load on demand.
+        if (shardFolder.isDirectory()) {
+            this.sharded = true;
+        } else if (lazyShards) {
+            this.sharded = migrateToShards();
+        } else {
+            this.sharded = false;
+        }
+
+        if (!sharded) {
+            this.ready = loadDataAsync();
+        } else if (lazyShards) {
+            this.ready = CompletableFuture.completedFuture(null);
+            CompletableFuture.runAsync(this::loadAllShards, executor);
+        } else {
+            this.ready = CompletableFuture.runAsync(this::loadAllShards, executor);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> whenReady() {
+        return ready;
     }
 
     private CompletableFuture<Void> loadDataAsync() {
         return CompletableFuture.runAsync(() -> {
             if (authFile.exists()) {
                 try (FileReader reader = new FileReader(authFile)) {
-                    Type type = new TypeToken<ConcurrentHashMap<UUID, AuthData>>(){}.getType();
-                    authCache = gson.fromJson(reader, type);
-                    if (authCache == null) {
-                        authCache = new ConcurrentHashMap<>();
+                    Map<UUID, AuthData> loaded = gson.fromJson(reader, CACHE_TYPE);
+                    if (loaded != null) {
+                        loaded.forEach(authCache::putIfAbsent);
                     }
                 } catch (Exception e) {
                     plugin.getLogger().severe("Could not load authentication data: " + e.getMessage());
-                    authCache = new ConcurrentHashMap<>();
                 }
             }
-        });
+        }, executor);
     }
 
     private CompletableFuture<Void> saveDataAsync() {
-        return CompletableFuture.runAsync(() -> {
-            try (FileWriter writer = new FileWriter(authFile)) {
-                gson.toJson(authCache, writer);
+        return ready.thenRunAsync(() -> {
+            synchronized (authFile) {
+                try {
+                    writeAtomically(authFile, authCache);
+                } catch (IOException e) {
+                    plugin.getLogger().severe("Could not save authentication data: " + e.getMessage());
+                }
+            }
+        }, executor);
+    }
+
+    private static int shardOf(UUID uuid) {
+        return (int) (uuid.getMostSignificantBits() >>> 56);
+    }
+
+    private static String shardFileName(int shard) {
+        return String.format("%02x.json", shard);
+    }
+
+    private File getShardFile(int shard) {
+        return new File(shardFolder, shardFileName(shard));
+    }
+
+    /**
+     * Splits authentication.json into shards inside a staging folder that is renamed to auth/ only
+     * once every shard is written. Returns false when that fails, in which case the JSON file keeps
+     * serving and the migration is retried on the next start.
+     */
+    private boolean migrateToShards() {
+        if (!authFile.exists()) {
+            return shardFolder.mkdirs() || shardFolder.isDirectory();
+        }
+        File staging = new File(plugin.getDataFolder(), "auth.migrating");
+        try {
+            deleteFolder(staging);
+            Files.createDirectories(staging.toPath());
+
+            Map<UUID, AuthData> loaded;
+            try (FileReader reader = new FileReader(authFile)) {
+                loaded = gson.fromJson(reader, CACHE_TYPE);
+            }
+            Map<Integer, Map<UUID, AuthData>> shards = new HashMap<>();
+            if (loaded != null) {
+                loaded.forEach((uuid, data) -> shards.computeIfAbsent(shardOf(uuid), key -> new HashMap<>()).put(uuid, data));
+            }
+            for (Map.Entry<Integer, Map<UUID, AuthData>> shard : shards.entrySet()) {
+                try (FileWriter writer = new FileWriter(new File(staging, shardFileName(shard.getKey())))) {
+                    gson.toJson(shard.getValue(), writer);
+                }
+            }
+            Files.move(staging.toPath(), shardFolder.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Could not migrate authentication data to shards, staying on authentication.json: " + e.getMessage());
+            try {
+                deleteFolder(staging);
+            } catch (IOException ignored) {
+                // Cleared again before the next attempt.
+            }
+            return false;
+        }
+
+        File backup = new File(plugin.getDataFolder(), "authentication.json.bak");
+        if (!authFile.renameTo(backup)) {
+            plugin.getLogger().warning("Could not rename authentication.json after migrating it to sharded storage.");
+        }
+        plugin.getLogger().info("Migrated accounts from authentication.json into sharded authentication storage.");
+        return true;
+    }
+
+    private static void deleteFolder(File folder) throws IOException {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(folder.toPath());
+    }
+
+    private void loadAllShards() {
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            ensureShard(shard);
+        }
+    }
+
+    private void ensureShard(int shard) {
+        if (!sharded) return;
+        synchronized (shardLocks[shard]) {
+            if (shardLoaded.get(shard) == 1) return;
+            File shardFile = getShardFile(shard);
+            if (shardFile.exists()) {
+                try (FileReader reader = new FileReader(shardFile)) {
+                    Map<UUID, AuthData> loaded = gson.fromJson(reader, CACHE_TYPE);
+                    if (loaded != null) {
+                        loaded.forEach(authCache::putIfAbsent);
+                    }
+                } catch (Exception e) {
+                    plugin.getLogger().severe("Could not load authentication shard " + shardFile.getName() + ": " + e.getMessage());
+                }
+            }
+            shardLoaded.set(shard, 1);
+        }
+    }
+
+    private boolean isShardLoaded(int shard) {
+        return shardLoaded.get(shard) == 1;
+    }
+
+    private void writeShard(int shard) {
+        synchronized (shardLocks[shard]) {
+            Map<UUID, AuthData> entries = new HashMap<>();
+            authCache.forEach((uuid, data) -> {
+                if (shardOf(uuid) == shard) entries.put(uuid, data);
+            });
+            File shardFile = getShardFile(shard);
+            if (entries.isEmpty()) {
+                shardFile.delete();
+                return;
+            }
+            try {
+                writeAtomically(shardFile, entries);
             } catch (IOException e) {
-                plugin.getLogger().severe("Could not save authentication data: " + e.getMessage());
+                plugin.getLogger().severe("Could not save authentication shard " + shardFile.getName() + ": " + e.getMessage());
             }
-        });
+        }
+    }
+
+    /** Callers hold the lock for {@code target}, so one temp file per target is enough. */
+    private void writeAtomically(File target, Map<UUID, AuthData> entries) throws IOException {
+        File tempFile = new File(target.getPath() + ".tmp");
+        try (FileWriter writer = new FileWriter(tempFile)) {
+            gson.toJson(entries, writer);
+        }
+        Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private <T> CompletableFuture<T> withShard(UUID uuid, Supplier<T> lookup) {
+        int shard = shardOf(uuid);
+        if (!sharded || isShardLoaded(shard)) {
+            return CompletableFuture.completedFuture(lookup.get());
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            ensureShard(shard);
+            return lookup.get();
+        }, executor);
+    }
+
+    private CompletableFuture<Void> persist(UUID uuid) {
+        if (!sharded) {
+            return saveDataAsync();
+        }
+        int shard = shardOf(uuid);
+        return CompletableFuture.runAsync(() -> {
+            ensureShard(shard);
+            writeShard(shard);
+        }, executor);
     }
 
     @Override
     public CompletableFuture<Boolean> isPlayerRegistered(UUID uuid) {
-        return CompletableFuture.completedFuture(authCache.containsKey(uuid));
+        return withShard(uuid, () -> authCache.containsKey(uuid));
+    }
+
+    @Override
+    public Boolean peekRegistered(UUID uuid) {
+        boolean loaded = sharded ? isShardLoaded(shardOf(uuid)) : ready.isDone();
+        return loaded ? authCache.containsKey(uuid) : null;
     }
 
     @Override
     public CompletableFuture<String> getPasswordHash(UUID uuid) {
-        AuthData data = authCache.get(uuid);
-        return CompletableFuture.completedFuture(data != null ? data.passwordHash : null);
+        return withShard(uuid, () -> {
+            AuthData data = authCache.get(uuid);
+            return data != null ? data.passwordHash : null;
+        });
     }
 
     @Override
     public CompletableFuture<Void> savePasswordHash(UUID uuid, String playerName, String hash) {
         authCache.put(uuid, new AuthData(playerName, hash));
-        return saveDataAsync();
+        return persist(uuid);
     }
 
     @Override
     public CompletableFuture<Void> removePlayer(UUID uuid) {
+        if (sharded) {
+            int shard = shardOf(uuid);
+            return CompletableFuture.runAsync(() -> {
+                ensureShard(shard);
+                authCache.remove(uuid);
+                writeShard(shard);
+            }, executor);
+        }
         authCache.remove(uuid);
         return saveDataAsync();
     }
@@ -2,129 +2,243 @@ package com.zeroends.strictgeoguardian.storage;
 
 import com.google.gson.Gson;
 import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+import com.zeroends.strictgeoguardian.core.FlightRecorderEvents;
 import com.zeroends.strictgeoguardian.model.Fingerprint;
+import com.zeroends.strictgeoguardian.util.HashUtils;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 
 public class JsonStorage implements IDataStorage {
 
     private final StrictGeoGuardian plugin;
+    private final Executor executor;
     private final File dataFolder;
     private final Gson gson;
+    private final UuidNameIndex uuidIndex;
+    private final boolean binaryFormat;
+    private final LongAdder skippedWrites = new LongAdder();
 
-    public JsonStorage(StrictGeoGuardian plugin, Gson gson) {
+    public JsonStorage(StrictGeoGuardian plugin, Gson gson) throws IOException {
         this.plugin = plugin;
+        this.executor = plugin.getExecutors().io("fingerprint-storage");
         this.gson = gson;
+        this.binaryFormat = plugin.getConfigManager().getFingerprintFormat().equals("binary");
         this.dataFolder = new File(plugin.getDataFolder(), "fingerprints");
         if (!dataFolder.exists()) {
             dataFolder.mkdirs();
         }
+        this.uuidIndex = new UuidNameIndex(new File(dataFolder, "uuid-index.log").toPath());
+        migrateFlatLayout();
+    }
+
+    private File getShardFolder(String playerName) {
+        return new File(dataFolder, HashUtils.sha256(playerName.toLowerCase()).substring(0, 2));
     }
 
     private File getPlayerFile(String playerName) {
-        return new File(dataFolder, playerName.toLowerCase() + ".json");
+        return getPlayerFile(playerName, binaryFormat);
     }
-    
-    private File getPlayerFile(UUID uuid) {
-        return new File(dataFolder, uuid.toString() + ".json");
+
+    private File getPlayerFile(String playerName, boolean binary) {
+        return new File(getShardFolder(playerName), playerName.toLowerCase() + (binary ? ".bin" : ".json"));
+    }
+
+    private File findPlayerFile(String playerName) {
+        File preferred = getPlayerFile(playerName, binaryFormat);
+        if (preferred.exists()) {
+            return preferred;
+        }
+        File other = getPlayerFile(playerName, !binaryFormat);
+        return other.exists() ? other : null;
+    }
+
+    private Fingerprint readFingerprint(File file) throws IOException {
+        if (file.getName().endsWith(".bin")) {
+            return FingerprintCodec.decode(Files.readAllBytes(file.toPath()));
+        }
+        try (FileReader reader = new FileReader(file)) {
+            return gson.fromJson(reader, Fingerprint.class);
+        }
+    }
+
+    /**
+     * Moves fingerprints from the old single-directory layout ({@code <name>.json} plus a
+     * {@code <uuid>.json} symlink) into hash-prefix shards, recording the symlinks in the UUID index.
+     */
+    private void migrateFlatLayout() throws IOException {
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dataFolder.toPath(), "*.json")) {
+            for (Path entry : entries) {
+                String fileName = entry.getFileName().toString();
+                String baseName = fileName.substring(0, fileName.length() - ".json".length());
+                try {
+                    if (Files.isSymbolicLink(entry)) {
+                        String target = Files.readSymbolicLink(entry).getFileName().toString();
+                        uuidIndex.put(UUID.fromString(baseName), target.substring(0, target.length() - ".json".length()));
+                        Files.delete(entry);
+                        continue;
+                    }
+                    if (!Files.isRegularFile(entry)) continue;
+
+                    try (FileReader reader = new FileReader(entry.toFile())) {
+                        Fingerprint fp = gson.fromJson(reader, Fingerprint.class);
+                        if (fp != null && fp.javaUuid() != null) {
+                            uuidIndex.put(fp.javaUuid(), baseName);
+                        }
+                    }
+                    File shard = getShardFolder(baseName);
+                    shard.mkdirs();
+                    Files.move(entry, new File(shard, fileName).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    moved++;
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Could not migrate fingerprint file " + fileName + ": " + e.getMessage());
+                }
+            }
+        }
+        if (moved > 0) {
+            plugin.getLogger().info("Migrated " + moved + " fingerprint files into the sharded directory layout.");
+        }
     }
 
     @Override
     public CompletableFuture<Void> saveFingerprint(Fingerprint fingerprint) {
         return CompletableFuture.runAsync(() -> {
+            FlightRecorderEvents.Storage event = new FlightRecorderEvents.Storage();
+            event.begin();
             File playerFile = getPlayerFile(fingerprint.playerName());
-            File uuidFile = getPlayerFile(fingerprint.javaUuid());
+            if (isUnchanged(playerFile, fingerprint)) {
+                skippedWrites.increment();
+                commit(event, "save", fingerprint.javaUuid(), "unchanged");
+                return;
+            }
+            playerFile.getParentFile().mkdirs();
 
-            try (FileWriter writer = new FileWriter(playerFile)) {
-                gson.toJson(fingerprint, writer);
+            Path temp = null;
+            try {
+                temp = Files.createTempFile(playerFile.getParentFile().toPath(), playerFile.getName(), ".tmp");
+                if (binaryFormat) {
+                    Files.write(temp, FingerprintCodec.encode(fingerprint));
+                } else {
+                    try (FileWriter writer = new FileWriter(temp.toFile())) {
+                        gson.toJson(fingerprint, writer);
+                    }
+                }
+                Files.move(temp, playerFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(getPlayerFile(fingerprint.playerName(), !binaryFormat).toPath());
             } catch (IOException e) {
+                deleteQuietly(temp);
                 plugin.getLogger().severe("Could not save fingerprint for " + fingerprint.playerName() + ": " + e.getMessage());
+                commit(event, "save", fingerprint.javaUuid(), "error");
                 throw new RuntimeException(e);
             }
-            
+
             try {
-                if(uuidFile.exists()) uuidFile.delete();
-                Files.createSymbolicLink(uuidFile.toPath(), playerFile.toPath());
-            } catch (Exception e) {
-                plugin.getLogger().warning("Could not create UUID symlink for " + fingerprint.playerName() + ": " + e.getMessage());
+                uuidIndex.put(fingerprint.javaUuid(), fingerprint.playerName());
+            } catch (IOException e) {
+                plugin.getLogger().warning("Could not update UUID index for " + fingerprint.playerName() + ": " + e.getMessage());
             }
-        });
+            commit(event, "save", fingerprint.javaUuid(), "ok");
+        }, executor);
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // Leftover .tmp files are never read.
+        }
+    }
+
+    private boolean isUnchanged(File playerFile, Fingerprint fingerprint) {
+        if (!playerFile.exists() || !fingerprint.playerName().toLowerCase().equals(uuidIndex.get(fingerprint.javaUuid()))) {
+            return false;
+        }
+        try {
+            return fingerprint.contentEquals(readFingerprint(playerFile));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public long getSkippedWrites() {
+        return skippedWrites.sum();
     }
 
     @Override
     public CompletableFuture<Fingerprint> loadFingerprint(String playerName) {
         return CompletableFuture.supplyAsync(() -> {
-            File playerFile = getPlayerFile(playerName);
-            if (!playerFile.exists()) {
+            FlightRecorderEvents.Storage event = new FlightRecorderEvents.Storage();
+            event.begin();
+            File playerFile = findPlayerFile(playerName);
+            if (playerFile == null) {
+                commit(event, "load", playerName.toLowerCase(), "missing");
                 return null;
             }
 
-            try (FileReader reader = new FileReader(playerFile)) {
-                return gson.fromJson(reader, Fingerprint.class);
+            try {
+                Fingerprint fingerprint = readFingerprint(playerFile);
+                commit(event, "load", fingerprint != null ? fingerprint.javaUuid() : playerName.toLowerCase(), "ok");
+                return fingerprint;
             } catch (Exception e) {
                 plugin.getLogger().severe("Could not load fingerprint for " + playerName + ": " + e.getMessage());
+                commit(event, "load", playerName.toLowerCase(), "error");
                 return null;
             }
-        });
+        }, executor);
     }
 
     @Override
     public CompletableFuture<Fingerprint> loadFingerprintByUuid(UUID uuid) {
-         return CompletableFuture.supplyAsync(() -> {
-            File playerFile = getPlayerFile(uuid);
-            if (!playerFile.exists()) {
-                return null;
-            }
-
-            try (FileReader reader = new FileReader(playerFile)) {
-                return gson.fromJson(reader, Fingerprint.class);
-            } catch (Exception e) {
-                plugin.getLogger().severe("Could not load fingerprint for UUID " + uuid + ": " + e.getMessage());
-                return null;
-            }
-        });
+        String playerName = uuidIndex.get(uuid);
+        if (playerName == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return loadFingerprint(playerName);
     }
 
     @Override
     public CompletableFuture<Void> deleteFingerprint(String playerName) {
         return CompletableFuture.runAsync(() -> {
+            FlightRecorderEvents.Storage event = new FlightRecorderEvents.Storage();
+            event.begin();
             try {
-                Fingerprint fp = loadFingerprint(playerName).join();
-                if(fp != null) {
-                    File uuidFile = getPlayerFile(fp.javaUuid());
-                    if(uuidFile.exists()) Files.delete(uuidFile.toPath());
-                }
-                File playerFile = getPlayerFile(playerName);
-                if (playerFile.exists()) {
-                    Files.delete(playerFile.toPath());
-                }
+                uuidIndex.removeName(playerName);
+                Files.deleteIfExists(getPlayerFile(playerName, false).toPath());
+                Files.deleteIfExists(getPlayerFile(playerName, true).toPath());
+                commit(event, "delete", playerName.toLowerCase(), "ok");
             } catch (IOException e) {
                 plugin.getLogger().severe("Could not delete fingerprint for " + playerName + ": " + e.getMessage());
+                commit(event, "delete", playerName.toLowerCase(), "error");
             }
-        });
+        }, executor);
     }
 
     @Override
     public CompletableFuture<List<Fingerprint>> getAllFingerprints() {
         return CompletableFuture.supplyAsync(() -> {
             List<Fingerprint> fingerprints = new ArrayList<>();
-            try (Stream<Path> paths = Files.walk(dataFolder.toPath())) {
+            try (Stream<Path> paths = Files.walk(dataFolder.toPath(), 2)) {
                 paths.filter(Files::isRegularFile)
-                     .filter(path -> path.toString().endsWith(".json"))
-                     .filter(path -> !Files.isSymbolicLink(path))
+                     .filter(path -> path.toString().endsWith(".json") || path.toString().endsWith(".bin"))
                      .forEach(path -> {
-                         try (FileReader reader = new FileReader(path.toFile())) {
-                             Fingerprint fp = gson.fromJson(reader, Fingerprint.class);
+                         try {
+                             Fingerprint fp = readFingerprint(path.toFile());
                              if (fp != null) {
                                  fingerprints.add(fp);
                              }
@@ -136,6 +250,25 @@ public class JsonStorage implements IDataStorage {
                 plugin.getLogger().severe("Could not read fingerprint data folder: " + e.getMessage());
             }
             return fingerprints;
-        });
+        }, executor);
+    }
+
+    private static void commit(FlightRecorderEvents.Storage event, String operation, Object player, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.player = FlightRecorderEvents.hash(player);
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            uuidIndex.close();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not close UUID index: " + e.getMessage());
+        }
     }
 }
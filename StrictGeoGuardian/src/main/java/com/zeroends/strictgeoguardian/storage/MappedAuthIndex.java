@@ -0,0 +1,379 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash table of fixed-size auth records kept in a memory-mapped file.
+ * Lookups read straight from the mapping, so opening the index costs nothing regardless of size.
+ *
+ * Layout: a 64 byte header followed by {@code capacity} records of
+ * [state:1][uuidMsb:8][uuidLsb:8][nameHash:8][hashLen:1][hash:hashBytes].
+ * Files written with a different hash width are rebuilt to the current width on open.
+ * New tables are built in a side file whose magic number is written last and then renamed over
+ * the live file, so a file carrying the magic number is always complete.
+ */
+public class MappedAuthIndex implements AutoCloseable {
+
+    private static final int MAGIC = 0x53474149; // "SGAI"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SIZE_FIELD = 12;
+    private static final int HEADER_TOMBSTONES = 16;
+    private static final int HEADER_HASH_BYTES = 20;
+
+    public static final int HASH_BYTES = 96;
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte REMOVED = 2;
+
+    private final Path path;
+    private final Path rehashPath;
+    private final StampedLock lock = new StampedLock();
+
+    /** One mapping of the file; replaced as a whole so readers never see a half-swapped table. */
+    private record Table(FileChannel channel, MappedByteBuffer buffer, int capacity, int recordSize, int hashBytes) {
+        int offsetOf(int slot) {
+            return MappedAuthIndex.offsetOf(slot, recordSize);
+        }
+    }
+
+    private volatile Table table;
+    private int size;
+    private int tombstones;
+
+    public MappedAuthIndex(Path path) throws IOException {
+        this.path = path;
+        this.rehashPath = path.resolveSibling(path.getFileName() + ".rehash");
+        open();
+    }
+
+    private void open() throws IOException {
+        if (Files.exists(rehashPath)) {
+            if (isComplete(rehashPath)) {
+                replaceLive();
+            } else {
+                Files.delete(rehashPath);
+            }
+        }
+
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            try (FileChannel side = FileChannel.open(rehashPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                seal(initialize(side, DEFAULT_CAPACITY, HASH_BYTES));
+            }
+            replaceLive();
+        }
+        install(map(path));
+
+        if (table.hashBytes() != HASH_BYTES) {
+            rehash(table.capacity(), HASH_BYTES);
+        }
+    }
+
+    private static Table map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.BIG_ENDIAN);
+            if (header.getInt(HEADER_MAGIC) != MAGIC) {
+                throw new IOException("Not an auth index file: " + file);
+            }
+            if (header.getInt(HEADER_VERSION) > VERSION) {
+                throw new IOException("Auth index " + file + " was written by a newer version of the plugin.");
+            }
+            int capacity = header.getInt(HEADER_CAPACITY);
+            int hashBytes = header.getInt(HEADER_HASH_BYTES);
+            int recordSize = recordSize(hashBytes);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * recordSize);
+            return new Table(channel, buffer, capacity, recordSize, hashBytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void install(Table next) {
+        size = next.buffer().getInt(HEADER_SIZE_FIELD);
+        tombstones = next.buffer().getInt(HEADER_TOMBSTONES);
+        table = next;
+    }
+
+    private static int recordSize(int hashBytes) {
+        return 1 + 8 + 8 + 8 + 1 + hashBytes;
+    }
+
+    /** Lays out an empty table without the magic number; {@link #seal} makes it valid. */
+    private static MappedByteBuffer initialize(FileChannel target, int capacity, int hashBytes) throws IOException {
+        long length = HEADER_SIZE + (long) capacity * recordSize(hashBytes);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Auth index cannot grow to " + capacity + " records; the file would exceed 2 GB.");
+        }
+        target.truncate(0);
+        MappedByteBuffer map = target.map(FileChannel.MapMode.READ_WRITE, 0, length);
+        map.putInt(HEADER_VERSION, VERSION);
+        map.putInt(HEADER_CAPACITY, capacity);
+        map.putInt(HEADER_SIZE_FIELD, 0);
+        map.putInt(HEADER_TOMBSTONES, 0);
+        map.putInt(HEADER_HASH_BYTES, hashBytes);
+        return map;
+    }
+
+    private static void seal(MappedByteBuffer map) {
+        map.force();
+        map.putInt(HEADER_MAGIC, MAGIC);
+        map.force();
+    }
+
+    public boolean contains(UUID uuid) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                boolean found = findSlot(table, uuid) >= 0;
+                if (lock.validate(stamp)) {
+                    return found;
+                }
+            } catch (RuntimeException ignored) {
+                // Raced with a write or a remap; whatever was read is discarded and retried under the read lock.
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return findSlot(table, uuid) >= 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public String getHash(UUID uuid) {
+        long stamp = lock.readLock();
+        try {
+            Table current = table;
+            int slot = findSlot(current, uuid);
+            if (slot < 0) {
+                return null;
+            }
+            int offset = current.offsetOf(slot);
+            int length = current.buffer().get(offset + 25) & 0xFF;
+            byte[] bytes = new byte[length];
+            current.buffer().get(offset + 26, bytes);
+            return new String(bytes, StandardCharsets.US_ASCII);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(UUID uuid, String playerName, String hash) throws IOException {
+        byte[] hashData = hash.getBytes(StandardCharsets.US_ASCII);
+        int hashBytes = table.hashBytes();
+        if (hashData.length > hashBytes) {
+            throw new IllegalArgumentException("Password hash is longer than the " + hashBytes + " bytes an index record can hold.");
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(table, uuid);
+            if (slot < 0) {
+                if (size + tombstones + 1 > table.capacity() * MAX_LOAD) {
+                    int capacity = table.capacity();
+                    rehash(size + 1 > capacity * MAX_LOAD / 2 ? capacity * 2 : capacity, table.hashBytes());
+                }
+                slot = insertSlot(table, uuid);
+                if (table.buffer().get(table.offsetOf(slot)) == REMOVED) {
+                    tombstones--;
+                }
+                size++;
+            }
+            writeRecord(table.buffer(), table.offsetOf(slot), uuid, nameHash(playerName), hashData, table.hashBytes());
+            writeCounts();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public boolean remove(UUID uuid) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = findSlot(table, uuid);
+            if (slot < 0) {
+                return false;
+            }
+            table.buffer().put(table.offsetOf(slot), REMOVED);
+            size--;
+            tombstones++;
+            writeCounts();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void force() {
+        long stamp = lock.readLock();
+        try {
+            table.buffer().force();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            table.buffer().force();
+            table.channel().close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static int offsetOf(int slot, int recordSize) {
+        return Math.toIntExact(HEADER_SIZE + (long) slot * recordSize);
+    }
+
+    private static int findSlot(Table table, UUID uuid) {
+        MappedByteBuffer buffer = table.buffer();
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int mask = table.capacity() - 1;
+        int slot = spread(msb, lsb) & mask;
+        for (int probes = 0; probes < table.capacity(); probes++) {
+            int offset = table.offsetOf(slot);
+            byte state = buffer.get(offset);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if (state == USED && buffer.getLong(offset + 1) == msb && buffer.getLong(offset + 9) == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int insertSlot(Table table, UUID uuid) {
+        int mask = table.capacity() - 1;
+        int slot = spread(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits()) & mask;
+        while (table.buffer().get(table.offsetOf(slot)) == USED) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void writeCounts() {
+        table.buffer().putInt(HEADER_SIZE_FIELD, size);
+        table.buffer().putInt(HEADER_TOMBSTONES, tombstones);
+    }
+
+    private static void writeRecord(MappedByteBuffer target, int offset, UUID uuid, long nameHash, byte[] hash, int hashBytes) {
+        target.putLong(offset + 1, uuid.getMostSignificantBits());
+        target.putLong(offset + 9, uuid.getLeastSignificantBits());
+        target.putLong(offset + 17, nameHash);
+        target.put(offset + 25, (byte) hash.length);
+        target.put(offset + 26, hash);
+        for (int i = hash.length; i < hashBytes; i++) {
+            target.put(offset + 26 + i, (byte) 0);
+        }
+        target.put(offset, USED);
+    }
+
+    /**
+     * Rebuilds the table into a side file, seals it once every record is on disk, maps it and only
+     * then renames it over the live file and swaps it in. Until that last step the old mapping stays
+     * installed, so a failure at any point leaves the index usable. A crash before the seal leaves an
+     * unsealed side file that the next open discards; a crash after it is finished by the next open.
+     */
+    private void rehash(int newCapacity, int newHashBytes) throws IOException {
+        Table old = table;
+        MappedByteBuffer buffer = old.buffer();
+        int newRecordSize = recordSize(newHashBytes);
+        try (FileChannel side = FileChannel.open(rehashPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer target = initialize(side, newCapacity, newHashBytes);
+            int mask = newCapacity - 1;
+            int live = 0;
+            for (int slot = 0; slot < old.capacity(); slot++) {
+                int offset = old.offsetOf(slot);
+                if (buffer.get(offset) != USED) continue;
+
+                long msb = buffer.getLong(offset + 1);
+                long lsb = buffer.getLong(offset + 9);
+                int length = buffer.get(offset + 25) & 0xFF;
+                byte[] hash = new byte[length];
+                buffer.get(offset + 26, hash);
+
+                int newSlot = spread(msb, lsb) & mask;
+                while (target.get(offsetOf(newSlot, newRecordSize)) == USED) {
+                    newSlot = (newSlot + 1) & mask;
+                }
+                writeRecord(target, offsetOf(newSlot, newRecordSize), new UUID(msb, lsb), buffer.getLong(offset + 17), hash, newHashBytes);
+                live++;
+            }
+            target.putInt(HEADER_SIZE_FIELD, live);
+            seal(target);
+        }
+
+        buffer.force();
+        Table next = map(rehashPath);
+        try {
+            replaceLive();
+        } catch (IOException e) {
+            next.channel().close();
+            throw e;
+        }
+        // The rename keeps the inode, so the new mapping follows the file to its final name.
+        install(next);
+        old.channel().close();
+    }
+
+    private static boolean isComplete(Path file) throws IOException {
+        if (Files.size(file) < HEADER_SIZE) return false;
+        try (FileChannel side = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer header = side.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(HEADER_MAGIC) != MAGIC) return false;
+            long expected = HEADER_SIZE + (long) header.getInt(HEADER_CAPACITY) * recordSize(header.getInt(HEADER_HASH_BYTES));
+            return side.size() == expected;
+        }
+    }
+
+    private void replaceLive() throws IOException {
+        Files.move(rehashPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static int spread(long msb, long lsb) {
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    static long nameHash(String playerName) {
+        if (playerName == null) return 0L;
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : playerName.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,168 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.zeroends.strictgeoguardian.StrictGeoGuardian;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public class MappedAuthStorage implements IAuthStorage {
+
+    private final StrictGeoGuardian plugin;
+    private final Executor executor;
+    private final MappedAuthIndex index;
+
+    public MappedAuthStorage(StrictGeoGuardian plugin) throws IOException {
+        this.plugin = plugin;
+        this.executor = plugin.getExecutors().io("auth-storage");
+        Path indexPath = new File(plugin.getDataFolder(), "authentication.idx").toPath();
+        Files.createDirectories(plugin.getDataFolder().toPath());
+
+        if (!Files.exists(indexPath)) {
+            migrateExisting(indexPath);
+        }
+        this.index = new MappedAuthIndex(indexPath);
+    }
+
+    /**
+     * Imports whatever the JSON backend left behind: the auth/ shards when it ran sharded,
+     * otherwise authentication.json, otherwise the authentication.json.bak a previous migration
+     * kept. A source that exists but cannot be read aborts startup instead of opening an empty index.
+     */
+    private void migrateExisting(Path indexPath) throws IOException {
+        Path dataFolder = plugin.getDataFolder().toPath();
+        Path shardFolder = dataFolder.resolve("auth");
+        Path legacyFile = dataFolder.resolve("authentication.json");
+        Path backupFile = dataFolder.resolve("authentication.json.bak");
+
+        if (Files.exists(shardFolder)) {
+            List<Path> shards = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(shardFolder, "*.json")) {
+                entries.forEach(shards::add);
+            }
+            migrate(shards, indexPath, "the auth/ shards");
+            retire(shardFolder);
+        } else if (Files.exists(legacyFile)) {
+            migrate(List.of(legacyFile), indexPath, "authentication.json");
+            retire(legacyFile);
+        } else if (Files.exists(backupFile)) {
+            migrate(List.of(backupFile), indexPath, "authentication.json.bak");
+        }
+    }
+
+    /**
+     * Builds the index in a staging file and renames it into place only once every account has
+     * been copied, so an interrupted migration leaves no index behind and simply runs again.
+     */
+    private void migrate(List<Path> sources, Path indexPath, String description) throws IOException {
+        Path staging = indexPath.resolveSibling(indexPath.getFileName() + ".migrating");
+        Path stagingSide = staging.resolveSibling(staging.getFileName() + ".rehash");
+        Files.deleteIfExists(staging);
+        Files.deleteIfExists(stagingSide);
+
+        int migrated = 0;
+        try (MappedAuthIndex staged = new MappedAuthIndex(staging)) {
+            for (Path source : sources) {
+                migrated += copyAccounts(source, staged);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staging);
+            Files.deleteIfExists(stagingSide);
+            throw new IOException("Could not migrate " + description + " into authentication.idx: " + e.getMessage(), e);
+        }
+        Files.move(staging, indexPath, StandardCopyOption.ATOMIC_MOVE);
+        plugin.getLogger().info("Migrated " + migrated + " accounts from " + description + " into authentication.idx.");
+    }
+
+    private static int copyAccounts(Path source, MappedAuthIndex target) throws IOException {
+        int copied = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(source))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                UUID uuid = UUID.fromString(reader.nextName());
+                String playerName = null;
+                String passwordHash = null;
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String field = reader.nextName();
+                    if (reader.peek() == JsonToken.NULL) {
+                        reader.nextNull();
+                    } else if (field.equals("playerName")) {
+                        playerName = reader.nextString();
+                    } else if (field.equals("passwordHash")) {
+                        passwordHash = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                if (passwordHash != null) {
+                    target.put(uuid, playerName, passwordHash);
+                    copied++;
+                }
+            }
+            reader.endObject();
+        }
+        return copied;
+    }
+
+    /** Moves migrated source data aside to {@code <name>.bak}, or a timestamped name if that is taken. */
+    static Path retire(Path source) throws IOException {
+        Path backup = source.resolveSibling(source.getFileName() + ".bak");
+        if (Files.exists(backup)) {
+            backup = source.resolveSibling(source.getFileName() + ".bak." + System.currentTimeMillis());
+        }
+        return Files.move(source, backup, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isPlayerRegistered(UUID uuid) {
+        return CompletableFuture.completedFuture(index.contains(uuid));
+    }
+
+    @Override
+    public Boolean peekRegistered(UUID uuid) {
+        return index.contains(uuid);
+    }
+
+    @Override
+    public CompletableFuture<String> getPasswordHash(UUID uuid) {
+        return CompletableFuture.completedFuture(index.getHash(uuid));
+    }
+
+    @Override
+    public CompletableFuture<Void> savePasswordHash(UUID uuid, String playerName, String hash) {
+        try {
+            index.put(uuid, playerName, hash);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Could not save authentication data for " + playerName + ": " + e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.runAsync(index::force, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> removePlayer(UUID uuid) {
+        index.remove(uuid);
+        return CompletableFuture.runAsync(index::force, executor);
+    }
+
+    @Override
+    public void close() {
+        try {
+            index.close();
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not close authentication index: " + e.getMessage());
+        }
+    }
+}
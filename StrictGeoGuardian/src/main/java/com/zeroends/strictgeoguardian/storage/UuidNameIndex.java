@@ -0,0 +1,120 @@
+package com.zeroends.strictgeoguardian.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent UUID to player name mapping, stored as an append-only log of
+ * {@code <uuid> <name>} lines ({@code <uuid> -} marks a removal) and compacted once it
+ * holds mostly stale lines.
+ */
+public class UuidNameIndex implements AutoCloseable {
+
+    private static final String REMOVED = "-";
+    private static final int COMPACT_SLACK = 1024;
+
+    private final Path file;
+    private final ConcurrentHashMap<UUID, String> names = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+    private int logLines;
+
+    public UuidNameIndex(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int split = line.indexOf(' ');
+                    if (split <= 0) continue;
+                    try {
+                        UUID uuid = UUID.fromString(line.substring(0, split));
+                        String name = line.substring(split + 1);
+                        if (name.equals(REMOVED)) {
+                            names.remove(uuid);
+                        } else {
+                            names.put(uuid, name);
+                        }
+                        logLines++;
+                    } catch (IllegalArgumentException ignored) {
+                        // Torn last line from a crash; the next compaction drops it.
+                    }
+                }
+            }
+        }
+        openWriter();
+    }
+
+    private void openWriter() throws IOException {
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public String get(UUID uuid) {
+        return names.get(uuid);
+    }
+
+    public synchronized void put(UUID uuid, String playerName) throws IOException {
+        String name = playerName.toLowerCase();
+        if (name.equals(names.get(uuid))) {
+            return;
+        }
+        names.put(uuid, name);
+        append(uuid, name);
+    }
+
+    public synchronized void remove(UUID uuid) throws IOException {
+        if (names.remove(uuid) != null) {
+            append(uuid, REMOVED);
+        }
+    }
+
+    public synchronized void removeName(String playerName) throws IOException {
+        String name = playerName.toLowerCase();
+        for (Map.Entry<UUID, String> entry : names.entrySet()) {
+            if (entry.getValue().equals(name)) {
+                remove(entry.getKey());
+            }
+        }
+    }
+
+    private void append(UUID uuid, String value) throws IOException {
+        writer.write(uuid.toString());
+        writer.write(' ');
+        writer.write(value);
+        writer.newLine();
+        writer.flush();
+        logLines++;
+        if (logLines > names.size() * 2 + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<UUID, String> entry : names.entrySet()) {
+                out.write(entry.getKey().toString());
+                out.write(' ');
+                out.write(entry.getValue());
+                out.newLine();
+            }
+        }
+        writer.close();
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logLines = names.size();
+        openWriter();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
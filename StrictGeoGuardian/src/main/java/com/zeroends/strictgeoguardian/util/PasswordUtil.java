@@ -2,10 +2,39 @@ package com.zeroends.strictgeoguardian.util;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
 public class PasswordUtil {
 
+    public static final String BCRYPT = "bcrypt";
+    public static final String PBKDF2 = "pbkdf2";
+
+    public static final int DEFAULT_BCRYPT_COST = 10;
+    public static final int DEFAULT_PBKDF2_ITERATIONS = 210_000;
+
+    private static final String PBKDF2_PREFIX = "$pbkdf2-sha256$";
+    private static final String PBKDF2_ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int PBKDF2_SALT_BYTES = 16;
+    private static final int PBKDF2_KEY_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     public static String hashPassword(String plainTextPassword) {
-        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt());
+        return hashPassword(plainTextPassword, BCRYPT, DEFAULT_BCRYPT_COST);
+    }
+
+    public static String hashPassword(String plainTextPassword, String algorithm, int cost) {
+        if (PBKDF2.equals(algorithm)) {
+            byte[] salt = new byte[PBKDF2_SALT_BYTES];
+            RANDOM.nextBytes(salt);
+            Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+            return PBKDF2_PREFIX + cost + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(pbkdf2(plainTextPassword, salt, cost));
+        }
+        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(cost));
     }
 
     public static boolean checkPassword(String plainTextPassword, String hashedPassword) {
@@ -13,9 +42,73 @@ public class PasswordUtil {
             return false;
         }
         try {
+            if (hashedPassword.startsWith(PBKDF2_PREFIX)) {
+                String[] parts = hashedPassword.substring(PBKDF2_PREFIX.length()).split("\\$");
+                Base64.Decoder decoder = Base64.getDecoder();
+                byte[] expected = decoder.decode(parts[2]);
+                byte[] actual = pbkdf2(plainTextPassword, decoder.decode(parts[1]), Integer.parseInt(parts[0]));
+                return MessageDigest.isEqual(expected, actual);
+            }
             return BCrypt.checkpw(plainTextPassword, hashedPassword);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    /** True when the hash uses another algorithm or a weaker cost; stronger hashes are never downgraded. */
+    public static boolean needsRehash(String hashedPassword, String algorithm, int cost) {
+        if (hashedPassword == null) return false;
+        try {
+            if (hashedPassword.startsWith(PBKDF2_PREFIX)) {
+                String iterations = hashedPassword.substring(PBKDF2_PREFIX.length(), hashedPassword.indexOf('$', PBKDF2_PREFIX.length()));
+                return !PBKDF2.equals(algorithm) || Integer.parseInt(iterations) < cost;
+            }
+            return !BCRYPT.equals(algorithm) || Integer.parseInt(hashedPassword.substring(4, 6)) < cost;
+        } catch (RuntimeException e) {
             return false;
         }
     }
+
+    /**
+     * Picks the strongest cost whose hashing time stays within {@code targetMillis} on this machine,
+     * never going below the algorithm's default. PBKDF2 iterations are rounded down to a multiple
+     * of 10,000 so timing noise between restarts does not produce a new cost every time.
+     */
+    public static int calibrate(String algorithm, long targetMillis) {
+        if (PBKDF2.equals(algorithm)) {
+            int sample = 50_000;
+            long nanos = timeHash(PBKDF2, sample);
+            long iterations = (long) (sample * (targetMillis * 1_000_000.0 / Math.max(1, nanos))) / 10_000L * 10_000L;
+            return (int) Math.max(DEFAULT_PBKDF2_ITERATIONS, Math.min(iterations, 10_000_000L));
+        }
+
+        int cost = DEFAULT_BCRYPT_COST;
+        long nanos = timeHash(BCRYPT, cost);
+        while (cost < 16 && nanos * 2 <= targetMillis * 1_000_000L) {
+            cost++;
+            nanos *= 2;
+        }
+        return cost;
+    }
+
+    private static long timeHash(String algorithm, int cost) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            hashPassword("calibration-sample", algorithm, cost);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, PBKDF2_KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(PBKDF2_ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Failed to calculate " + PBKDF2_ALGORITHM, e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
 }
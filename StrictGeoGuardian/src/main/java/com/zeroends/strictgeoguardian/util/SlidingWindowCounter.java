@@ -0,0 +1,73 @@
+package com.zeroends.strictgeoguardian.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free per-key event counter over a sliding time window.
+ *
+ * Each key owns a ring of buckets; a bucket packs its slice number and count into one long so
+ * rolling it over and incrementing it is a single CAS. Keys with no events in the window are
+ * dropped by a periodic sweep.
+ */
+public class SlidingWindowCounter {
+
+    private static final int BUCKETS = 8;
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final ConcurrentHashMap<String, AtomicLongArray> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    public SlidingWindowCounter(long windowMillis) {
+        this.bucketMillis = Math.max(1L, windowMillis / BUCKETS);
+    }
+
+    /** Records one event for {@code key} and returns the number of events now in its window. */
+    public int increment(String key) {
+        long now = System.currentTimeMillis();
+        long slice = now / bucketMillis;
+        sweepIfDue(now, slice);
+
+        AtomicLongArray buckets = windows.computeIfAbsent(key, k -> new AtomicLongArray(BUCKETS));
+        int index = (int) (slice % BUCKETS);
+        while (true) {
+            long current = buckets.get(index);
+            long updated = (current >>> COUNT_BITS) == slice
+                    ? current + ((current & COUNT_MASK) < COUNT_MASK ? 1 : 0)
+                    : (slice << COUNT_BITS) | 1;
+            if (buckets.compareAndSet(index, current, updated)) break;
+        }
+        return sum(buckets, slice);
+    }
+
+    public int count(String key) {
+        AtomicLongArray buckets = windows.get(key);
+        return buckets == null ? 0 : sum(buckets, System.currentTimeMillis() / bucketMillis);
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    private int sum(AtomicLongArray buckets, long slice) {
+        int total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = buckets.get(i);
+            if (slice - (value >>> COUNT_BITS) < BUCKETS) {
+                total += (int) (value & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+
+    private void sweepIfDue(long now, long slice) {
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + bucketMillis * BUCKETS)) {
+            return;
+        }
+        windows.values().removeIf(buckets -> sum(buckets, slice) == 0);
+    }
+}
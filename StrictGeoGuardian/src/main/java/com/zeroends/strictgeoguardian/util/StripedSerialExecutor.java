@@ -0,0 +1,88 @@
+package com.zeroends.strictgeoguardian.util;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs tasks for the same key strictly one after another, in submission order, while tasks for
+ * keys on different stripes run in parallel on the delegate executor. No locks are taken; each
+ * stripe is a queue plus a "scheduled" flag.
+ */
+public final class StripedSerialExecutor {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final class Stripe implements Executor, Runnable {
+        private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        @Override
+        public void execute(Runnable task) {
+            queue.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (!scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                delegate.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                int processed = 0;
+                while (processed++ < BATCH_SIZE && (task = queue.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.log(Level.SEVERE, "Player state task failed", t);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final Executor delegate;
+    private final Logger logger;
+
+    public StripedSerialExecutor(int stripeCount, Executor delegate, Logger logger) {
+        int size = Integer.highestOneBit(Math.max(2, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.delegate = delegate;
+        this.logger = logger;
+    }
+
+    public Executor forKey(UUID key) {
+        long hash = key.getMostSignificantBits() ^ key.getLeastSignificantBits();
+        int spread = (int) (hash ^ (hash >>> 32));
+        return stripes[(spread ^ (spread >>> 16)) & mask];
+    }
+
+    public void execute(UUID key, Runnable task) {
+        forKey(key).execute(task);
+    }
+}
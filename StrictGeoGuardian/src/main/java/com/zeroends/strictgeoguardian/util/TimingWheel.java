@@ -0,0 +1,152 @@
+package com.zeroends.strictgeoguardian.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hashed timing wheel counted in server ticks. Scheduling and cancelling are O(1) and may happen
+ * from any thread; {@link #advance()} must be called once per tick from a single thread, which
+ * is also where the tasks run.
+ */
+public final class TimingWheel {
+
+    public final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private long rounds;
+        private Timeout prev;
+        private Timeout next;
+        private Bucket bucket;
+        private volatile int state = PENDING;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public boolean cancel() {
+            synchronized (this) {
+                if (state != PENDING) return false;
+                state = CANCELLED;
+            }
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        private boolean expire() {
+            synchronized (this) {
+                if (state != PENDING) return false;
+                state = EXPIRED;
+            }
+            return true;
+        }
+    }
+
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        Timeout remove(Timeout timeout) {
+            Timeout next = timeout.next;
+            if (timeout.prev != null) timeout.prev.next = next;
+            if (next != null) next.prev = timeout.prev;
+            if (timeout == head) head = next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = timeout.next = null;
+            timeout.bucket = null;
+            return next;
+        }
+    }
+
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Logger logger;
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private volatile long tick;
+
+    public TimingWheel(int size, Logger logger) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.buckets = new Bucket[capacity];
+        for (int i = 0; i < capacity; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = capacity - 1;
+        this.logger = logger;
+    }
+
+    public Timeout schedule(Runnable task, long delayTicks) {
+        Timeout timeout = new Timeout(task, tick + Math.max(1L, delayTicks));
+        incoming.add(timeout);
+        return timeout;
+    }
+
+    public void advance() {
+        long now = tick;
+        removeCancelled();
+        transferIncoming(now);
+
+        Bucket bucket = buckets[(int) (now & mask)];
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            if (timeout.rounds <= 0) {
+                Timeout next = bucket.remove(timeout);
+                if (timeout.expire()) {
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        logger.log(Level.SEVERE, "Scheduled task failed", t);
+                    }
+                }
+                timeout = next;
+            } else {
+                timeout.rounds--;
+                timeout = timeout.next;
+            }
+        }
+        tick = now + 1;
+    }
+
+    private void transferIncoming(long now) {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.isCancelled()) continue;
+            long deadline = Math.max(timeout.deadline, now);
+            timeout.rounds = (deadline - now) / buckets.length;
+            buckets[(int) (deadline & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    public long currentTick() {
+        return tick;
+    }
+}
@@ -0,0 +1,63 @@
+package com.zeroends.strictgeoguardian.util;
+
+import java.util.UUID;
+
+/**
+ * Copy-on-write set of UUIDs stored as a flat {@code long[]} of (msb, lsb) pairs. Reads are a
+ * lock-free scan over a small primitive array; writes copy the array and are meant to be rare.
+ */
+public final class UuidSet {
+
+    private static final long[] EMPTY = new long[0];
+
+    private volatile long[] entries = EMPTY;
+
+    public boolean contains(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long[] snapshot = entries;
+        for (int i = 0; i < snapshot.length; i += 2) {
+            if (snapshot[i] == msb && snapshot[i + 1] == lsb) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean add(UUID uuid) {
+        if (contains(uuid)) {
+            return false;
+        }
+        long[] current = entries;
+        long[] updated = new long[current.length + 2];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = uuid.getMostSignificantBits();
+        updated[current.length + 1] = uuid.getLeastSignificantBits();
+        entries = updated;
+        return true;
+    }
+
+    public synchronized boolean remove(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        long[] current = entries;
+        for (int i = 0; i < current.length; i += 2) {
+            if (current[i] == msb && current[i + 1] == lsb) {
+                long[] updated = new long[current.length - 2];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 2, updated, i, current.length - i - 2);
+                entries = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return entries.length == 0;
+    }
+
+    public int size() {
+        return entries.length / 2;
+    }
+}